@@ -0,0 +1,53 @@
+package org.locker.benchmarks;
+
+import org.locker.EntityLocker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ContendedBenchmark {
+
+    @Param
+    private LockerType lockerType;
+
+    @Param({"0", "100"})
+    private int criticalSectionTokens;
+
+    private EntityLocker<Integer> locker;
+    private Integer hotKey;
+
+    @Setup
+    public void setUp() {
+        locker = lockerType.create();
+        hotKey = 1;
+    }
+
+    @Benchmark
+    public void lockUnlockSameKey() {
+        locker.lock(hotKey);
+        try {
+            Blackhole.consumeCPU(criticalSectionTokens);
+        } finally {
+            locker.unlock(hotKey);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.locker.benchmarks;
+
+import org.locker.EntityLocker;
+import org.locker.cases.ContextConfig;
+import org.locker.cases.entity.BookId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextConfigBenchmark {
+    private static final int BOOKS = 1024;
+
+    @Param({"basicBookLocker", "stripedBookLocker", "noDeadLockBookLocker", "escalationBookLocker", "globalBookLocker"})
+    private String bean;
+
+    private EntityLocker<BookId> locker;
+    private BookId hotBook;
+
+    @Setup
+    public void setUp() {
+        ContextConfig config = new ContextConfig();
+        switch (bean) {
+            case "basicBookLocker":
+                locker = config.basicBookLocker();
+                break;
+            case "stripedBookLocker":
+                locker = config.stripedBookLocker();
+                break;
+            case "noDeadLockBookLocker":
+                locker = config.noDeadLockBookLocker();
+                break;
+            case "escalationBookLocker":
+                locker = config.escalationBookLocker();
+                break;
+            case "globalBookLocker":
+                locker = new GlobalEntityLockerAdapter<>(config.globalBookLocker());
+                break;
+            default:
+                throw new IllegalArgumentException(bean);
+        }
+        hotBook = new BookId("Crime and Punishment", "en");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void uncontendedSameBook() {
+        locker.lock(hotBook);
+        locker.unlock(hotBook);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void contendedSameBook() {
+        locker.lock(hotBook);
+        locker.unlock(hotBook);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void distinctBooks(Books books) {
+        BookId book = books.next();
+        locker.lock(book);
+        locker.unlock(book);
+    }
+
+    @State(Scope.Thread)
+    public static class Books {
+        private BookId[] books;
+        private int cursor;
+
+        @Setup
+        public void setUp() {
+            books = new BookId[BOOKS];
+            long thread = Thread.currentThread().getId();
+            for (int i = 0; i < BOOKS; i++) {
+                books[i] = new BookId("Book " + thread + "-" + i, "en");
+            }
+        }
+
+        BookId next() {
+            return books[cursor++ & (BOOKS - 1)];
+        }
+    }
+}
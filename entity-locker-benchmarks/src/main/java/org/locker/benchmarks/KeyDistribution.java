@@ -0,0 +1,52 @@
+package org.locker.benchmarks;
+
+import java.util.SplittableRandom;
+
+public enum KeyDistribution {
+    UNIFORM {
+        @Override
+        int[] sample(int keySpace, int size, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] keys = new int[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = random.nextInt(keySpace);
+            }
+            return keys;
+        }
+    },
+    ZIPF {
+        @Override
+        int[] sample(int keySpace, int size, long seed) {
+            double[] cumulative = new double[keySpace];
+            double sum = 0;
+            for (int rank = 0; rank < keySpace; rank++) {
+                sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                cumulative[rank] = sum;
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            int[] keys = new int[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = rank(cumulative, random.nextDouble() * sum);
+            }
+            return keys;
+        }
+
+        private int rank(double[] cumulative, double value) {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    };
+
+    static final double ZIPF_EXPONENT = 0.99;
+
+    abstract int[] sample(int keySpace, int size, long seed);
+}
@@ -0,0 +1,78 @@
+package org.locker.benchmarks;
+
+import org.locker.EntityLocker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class KeySpaceBenchmark {
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    @Param
+    private LockerType lockerType;
+
+    @Param
+    private KeyDistribution distribution;
+
+    @Param({"1000", "1000000"})
+    private int keySpace;
+
+    @Param({"0", "100"})
+    private int criticalSectionTokens;
+
+    private EntityLocker<Integer> locker;
+
+    @Setup
+    public void setUp() {
+        locker = lockerType.create();
+    }
+
+    @Benchmark
+    public void lockUnlock(KeySequence sequence) {
+        Integer key = sequence.next();
+        locker.lock(key);
+        try {
+            Blackhole.consumeCPU(criticalSectionTokens);
+        } finally {
+            locker.unlock(key);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class KeySequence {
+        private Integer[] keys;
+        private int cursor;
+
+        @Setup
+        public void setUp(KeySpaceBenchmark benchmark) {
+            int[] sample = benchmark.distribution.sample(benchmark.keySpace, SAMPLE_SIZE, Thread.currentThread().getId());
+            keys = new Integer[sample.length];
+            for (int i = 0; i < sample.length; i++) {
+                keys[i] = sample[i];
+            }
+        }
+
+        Integer next() {
+            return keys[cursor++ & (SAMPLE_SIZE - 1)];
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.locker.benchmarks;
+
+import org.locker.BasicEntityLocker;
+import org.locker.EntityLocker;
+import org.locker.EscalationEntityLocker;
+import org.locker.GlobalEntityLocker;
+import org.locker.InstrumentedEntityLocker;
+import org.locker.NoDeadLockEntityLocker;
+import org.locker.OwnedEntityLocker;
+import org.locker.PooledEntityLocker;
+import org.locker.QuiescentGlobalEntityLocker;
+import org.locker.StripedEntityLocker;
+import org.locker.WaitStrategy;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+public enum LockerType {
+    BASIC {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new BasicEntityLocker<>();
+        }
+    },
+    BASIC_ADAPTIVE_SPIN {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new BasicEntityLocker<>(WaitStrategy.bypassLimited(MAX_BYPASSES).withAdaptiveSpin(MAX_SPIN_MICROS, MICROSECONDS));
+        }
+    },
+    OWNED {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new OwnedEntityLocker<>();
+        }
+    },
+    STRIPED {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new StripedEntityLocker<>();
+        }
+    },
+    POOLED {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new PooledEntityLocker<>();
+        }
+    },
+    NO_DEAD_LOCK {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new NoDeadLockEntityLocker<>(new BasicEntityLocker<>());
+        }
+    },
+    ESCALATION {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new EscalationEntityLocker<>(new BasicEntityLocker<>(), ESCALATION_THRESHOLD);
+        }
+    },
+    INSTRUMENTED {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new InstrumentedEntityLocker<>(new BasicEntityLocker<>());
+        }
+    },
+    GLOBAL {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new GlobalEntityLockerAdapter<>(new GlobalEntityLocker<>(new BasicEntityLocker<>()));
+        }
+    },
+    QUIESCENT_GLOBAL {
+        @Override
+        <ID> EntityLocker<ID> create() {
+            return new QuiescentGlobalEntityLockerAdapter<>(new QuiescentGlobalEntityLocker<>(new BasicEntityLocker<>()));
+        }
+    };
+
+    static final int ESCALATION_THRESHOLD = 5;
+    static final int MAX_BYPASSES = 8;
+    static final int MAX_SPIN_MICROS = 20;
+
+    abstract <ID> EntityLocker<ID> create();
+}
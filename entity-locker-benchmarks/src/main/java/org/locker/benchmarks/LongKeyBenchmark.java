@@ -0,0 +1,79 @@
+package org.locker.benchmarks;
+
+import org.locker.BasicEntityLocker;
+import org.locker.BasicLongEntityLocker;
+import org.locker.EntityLocker;
+import org.locker.LongEntityLocker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LongKeyBenchmark {
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    @Param
+    private KeyDistribution distribution;
+
+    @Param({"1000", "1000000"})
+    private int keySpace;
+
+    private EntityLocker<Long> boxedLocker;
+    private LongEntityLocker primitiveLocker;
+
+    @Setup
+    public void setUp() {
+        boxedLocker = new BasicEntityLocker<>();
+        primitiveLocker = new BasicLongEntityLocker();
+    }
+
+    @Benchmark
+    public void boxedLockUnlock(KeySequence sequence) {
+        Long key = sequence.next();
+        boxedLocker.lock(key);
+        boxedLocker.unlock(key);
+    }
+
+    @Benchmark
+    public void primitiveLockUnlock(KeySequence sequence) {
+        long key = sequence.next();
+        primitiveLocker.lock(key);
+        primitiveLocker.unlock(key);
+    }
+
+    @State(Scope.Thread)
+    public static class KeySequence {
+        private long[] keys;
+        private int cursor;
+
+        @Setup
+        public void setUp(LongKeyBenchmark benchmark) {
+            int[] sample = benchmark.distribution.sample(benchmark.keySpace, SAMPLE_SIZE, Thread.currentThread().getId());
+            keys = new long[sample.length];
+            for (int i = 0; i < sample.length; i++) {
+                keys[i] = sample[i] * 0x9E3779B97F4A7C15L;
+            }
+        }
+
+        long next() {
+            return keys[cursor++ & (SAMPLE_SIZE - 1)];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.locker.benchmarks;
+
+import org.locker.EntityLocker;
+import org.locker.QuiescentGlobalEntityLocker;
+
+import java.util.concurrent.TimeUnit;
+
+final class QuiescentGlobalEntityLockerAdapter<ID> implements EntityLocker<ID> {
+    private final QuiescentGlobalEntityLocker<ID> locker;
+
+    QuiescentGlobalEntityLockerAdapter(QuiescentGlobalEntityLocker<ID> locker) {
+        this.locker = locker;
+    }
+
+    @Override
+    public void lock(ID id) {
+        try {
+            locker.lock(id);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return locker.tryLock(id, timeout, unit);
+    }
+
+    @Override
+    public void unlock(ID id) {
+        locker.unlock(id);
+    }
+}
@@ -0,0 +1,73 @@
+package org.locker.benchmarks;
+
+import org.locker.EntityLocker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class UncontendedBenchmark {
+
+    @Param
+    private LockerType lockerType;
+
+    private EntityLocker<Integer> locker;
+    private Integer sameKey;
+    private Integer[] keys;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        locker = lockerType.create();
+        sameKey = 1;
+        keys = new Integer[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+    }
+
+    @Benchmark
+    public void lockUnlockSameKey() {
+        locker.lock(sameKey);
+        locker.unlock(sameKey);
+    }
+
+    @Benchmark
+    public void lockUnlockNewKey() {
+        Integer key = keys[cursor++ & (keys.length - 1)];
+        locker.lock(key);
+        locker.unlock(key);
+    }
+
+    @Benchmark
+    public boolean tryLockUnlockSameKey() throws InterruptedException {
+        boolean locked = locker.tryLock(sameKey, 1, TimeUnit.SECONDS);
+        locker.unlock(sameKey);
+        return locked;
+    }
+
+    @Benchmark
+    public void reentrantLockUnlock() {
+        locker.lock(sameKey);
+        locker.lock(sameKey);
+        locker.unlock(sameKey);
+        locker.unlock(sameKey);
+    }
+}
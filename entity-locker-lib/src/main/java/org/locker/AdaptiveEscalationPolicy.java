@@ -0,0 +1,58 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class AdaptiveEscalationPolicy implements EscalationPolicy {
+    private final int minThreshold;
+    private final int maxThreshold;
+    private final long targetWaitNanos;
+    private final long maxLockTableSize;
+    private final AtomicInteger threshold;
+
+    public AdaptiveEscalationPolicy(int initialThreshold, int minThreshold, int maxThreshold,
+                                    long targetWait, TimeUnit unit, long maxLockTableSize) {
+        if (minThreshold < 0 || minThreshold > maxThreshold) {
+            throw new IllegalArgumentException("Thresholds must satisfy 0 <= min <= max: " + minThreshold + ", " + maxThreshold);
+        }
+        if (initialThreshold < minThreshold || initialThreshold > maxThreshold) {
+            throw new IllegalArgumentException("Initial threshold must be in range [" + minThreshold + ", " + maxThreshold + "]: " + initialThreshold);
+        }
+        if (maxLockTableSize <= 0) {
+            throw new IllegalArgumentException("Max lock table size must be positive: " + maxLockTableSize);
+        }
+        this.minThreshold = minThreshold;
+        this.maxThreshold = maxThreshold;
+        this.targetWaitNanos = unit.toNanos(targetWait);
+        this.maxLockTableSize = maxLockTableSize;
+        this.threshold = new AtomicInteger(initialThreshold);
+    }
+
+    @Override
+    public int getThreshold() {
+        return threshold.get();
+    }
+
+    @Override
+    public void onEscalation(long waitNanos) {
+        if (waitNanos > targetWaitNanos) {
+            raise();
+        }
+    }
+
+    @Override
+    public void onFailedEscalation(long waitNanos) {
+        raise();
+    }
+
+    @Override
+    public void onLockTableSize(long size) {
+        if (size > maxLockTableSize) {
+            threshold.updateAndGet(current -> Math.max(minThreshold, current / 2));
+        }
+    }
+
+    private void raise() {
+        threshold.updateAndGet(current -> (int) Math.min(maxThreshold, current * 2L + 1));
+    }
+}
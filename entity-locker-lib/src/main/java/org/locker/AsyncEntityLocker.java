@@ -0,0 +1,25 @@
+package org.locker;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+public interface AsyncEntityLocker<ID> {
+
+    CompletionStage<LockHandle> lockAsync(ID id);
+
+    CompletionStage<LockHandle> lockAsync(ID id, long timeout, TimeUnit unit);
+
+    @SuppressWarnings("try")
+    default CompletionStage<LockHandle> lockAsync(ID id, LockOwner owner) {
+        try (LockOwner.Binding ignored = owner.bind()) {
+            return lockAsync(id);
+        }
+    }
+
+    @SuppressWarnings("try")
+    default CompletionStage<LockHandle> lockAsync(ID id, LockOwner owner, long timeout, TimeUnit unit) {
+        try (LockOwner.Binding ignored = owner.bind()) {
+            return lockAsync(id, timeout, unit);
+        }
+    }
+}
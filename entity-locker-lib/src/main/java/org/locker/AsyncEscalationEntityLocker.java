@@ -0,0 +1,87 @@
+package org.locker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class AsyncEscalationEntityLocker<ID> implements AsyncEntityLocker<ID> {
+    private static final Object ESCALATED_LOCK = new Object();
+    private final int threshold;
+    private final AsyncEntityLocker<ID> locker;
+    private final AsyncEntityLocker<Object> escalatedLocker = new BasicAsyncEntityLocker<>();
+
+    public AsyncEscalationEntityLocker(AsyncEntityLocker<ID> locker, int threshold) {
+        this.locker = locker;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id) {
+        Escalation escalation = escalationOf(LockOwner.current());
+        return AsyncLocks.then(locker.lockAsync(id).toCompletableFuture(), escalation::acquire);
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id, long timeout, TimeUnit unit) {
+        Escalation escalation = escalationOf(LockOwner.current());
+        return AsyncLocks.withTimeout(AsyncLocks.then(locker.lockAsync(id).toCompletableFuture(), escalation::acquire), timeout, unit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Escalation escalationOf(LockOwner owner) {
+        Escalation escalation = (Escalation) owner.getAttachment(this);
+        if (escalation == null) {
+            escalation = new Escalation();
+            owner.attach(this, escalation);
+        }
+        return escalation;
+    }
+
+    private final class Escalation {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int counter;
+        private CompletableFuture<LockHandle> escalatedLock;
+
+        private CompletableFuture<LockHandle> acquire() {
+            CompletableFuture<LockHandle> escalated;
+            lock.lock();
+            try {
+                counter++;
+                if (counter <= threshold) {
+                    return CompletableFuture.completedFuture(this::release);
+                }
+                if (escalatedLock == null) {
+                    escalatedLock = escalatedLocker.lockAsync(ESCALATED_LOCK).toCompletableFuture();
+                }
+                escalated = escalatedLock;
+            } finally {
+                lock.unlock();
+            }
+            CompletableFuture<LockHandle> future = escalated.thenApply(handle -> this::release);
+            future.whenComplete((handle, error) -> {
+                if (error != null) {
+                    release();
+                }
+            });
+            return future;
+        }
+
+        private void release() {
+            CompletableFuture<LockHandle> released = null;
+            lock.lock();
+            try {
+                counter--;
+                if (counter == threshold && escalatedLock != null) {
+                    released = escalatedLock;
+                    escalatedLock = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (released != null) {
+                released.thenAccept(LockHandle::unlock);
+            }
+        }
+    }
+}
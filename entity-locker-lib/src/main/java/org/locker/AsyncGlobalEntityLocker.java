@@ -0,0 +1,141 @@
+package org.locker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class AsyncGlobalEntityLocker<ID> implements AsyncEntityLocker<ID> {
+    private final AsyncEntityLocker<ID> locker;
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final ArrayDeque<CompletableFuture<LockHandle>> entityWaiters = new ArrayDeque<>();
+    private final ArrayDeque<CompletableFuture<LockHandle>> globalWaiters = new ArrayDeque<>();
+    private int entityLocksCounter;
+    private boolean globallyLocked;
+
+    public AsyncGlobalEntityLocker(AsyncEntityLocker<ID> locker) {
+        this.locker = locker;
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id) {
+        return AsyncLocks.then(acquireEntityPermit(), () -> locker.lockAsync(id));
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id, long timeout, TimeUnit unit) {
+        return AsyncLocks.withTimeout(AsyncLocks.then(acquireEntityPermit(), () -> locker.lockAsync(id)), timeout, unit);
+    }
+
+    public CompletionStage<LockHandle> lockAsync() {
+        return acquireGlobalPermit();
+    }
+
+    public CompletionStage<LockHandle> lockAsync(long timeout, TimeUnit unit) {
+        return AsyncLocks.withTimeout(acquireGlobalPermit(), timeout, unit);
+    }
+
+    private CompletableFuture<LockHandle> acquireEntityPermit() {
+        CompletableFuture<LockHandle> permit = new CompletableFuture<>();
+        stateLock.lock();
+        try {
+            if (!globallyLocked && globalWaiters.isEmpty()) {
+                entityLocksCounter++;
+                permit.complete(this::releaseEntityPermit);
+                return permit;
+            }
+            entityWaiters.addLast(permit);
+        } finally {
+            stateLock.unlock();
+        }
+        permit.whenComplete((handle, error) -> {
+            if (error != null) {
+                remove(entityWaiters, permit);
+            }
+        });
+        return permit;
+    }
+
+    private CompletableFuture<LockHandle> acquireGlobalPermit() {
+        CompletableFuture<LockHandle> permit = new CompletableFuture<>();
+        stateLock.lock();
+        try {
+            if (!globallyLocked && entityLocksCounter == 0) {
+                globallyLocked = true;
+                permit.complete(this::releaseGlobalPermit);
+                return permit;
+            }
+            globalWaiters.addLast(permit);
+        } finally {
+            stateLock.unlock();
+        }
+        permit.whenComplete((handle, error) -> {
+            if (error != null) {
+                remove(globalWaiters, permit);
+            }
+        });
+        return permit;
+    }
+
+    private void releaseEntityPermit() {
+        stateLock.lock();
+        try {
+            entityLocksCounter--;
+        } finally {
+            stateLock.unlock();
+        }
+        dispatch(false);
+    }
+
+    private void releaseGlobalPermit() {
+        stateLock.lock();
+        try {
+            globallyLocked = false;
+        } finally {
+            stateLock.unlock();
+        }
+        dispatch(true);
+    }
+
+    private void remove(ArrayDeque<CompletableFuture<LockHandle>> waiters, CompletableFuture<LockHandle> permit) {
+        stateLock.lock();
+        try {
+            waiters.remove(permit);
+        } finally {
+            stateLock.unlock();
+        }
+        dispatch(false);
+    }
+
+    private void dispatch(boolean entitiesFirst) {
+        List<CompletableFuture<LockHandle>> entityPermits = new ArrayList<>();
+        CompletableFuture<LockHandle> globalPermit = null;
+        stateLock.lock();
+        try {
+            if (globallyLocked) {
+                return;
+            }
+            if (!entityWaiters.isEmpty() && (entitiesFirst || globalWaiters.isEmpty())) {
+                entityLocksCounter += entityWaiters.size();
+                entityPermits.addAll(entityWaiters);
+                entityWaiters.clear();
+            } else if (entityLocksCounter == 0 && !globalWaiters.isEmpty()) {
+                globallyLocked = true;
+                globalPermit = globalWaiters.pollFirst();
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        for (CompletableFuture<LockHandle> permit : entityPermits) {
+            if (!permit.complete(this::releaseEntityPermit)) {
+                releaseEntityPermit();
+            }
+        }
+        if (globalPermit != null && !globalPermit.complete(this::releaseGlobalPermit)) {
+            releaseGlobalPermit();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.locker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+final class AsyncLocks {
+
+    private AsyncLocks() {
+    }
+
+    static CompletableFuture<LockHandle> withTimeout(CompletableFuture<LockHandle> future, long timeout, TimeUnit unit) {
+        return future.orTimeout(Math.max(timeout, 0), unit);
+    }
+
+    static CompletableFuture<LockHandle> wrap(CompletableFuture<LockHandle> source, UnaryOperator<LockHandle> onAcquired, Runnable onFailed) {
+        CompletableFuture<LockHandle> result = new CompletableFuture<>();
+        source.whenComplete((handle, error) -> {
+            if (error != null) {
+                onFailed.run();
+                result.completeExceptionally(error);
+                return;
+            }
+            LockHandle wrapped = onAcquired.apply(handle);
+            if (!result.complete(wrapped)) {
+                wrapped.unlock();
+            }
+        });
+        result.whenComplete((handle, error) -> {
+            if (error != null) {
+                source.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    static CompletableFuture<LockHandle> then(CompletableFuture<LockHandle> first, Supplier<? extends CompletionStage<LockHandle>> next) {
+        CompletableFuture<LockHandle> result = new CompletableFuture<>();
+        first.whenComplete((outer, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                outer.unlock();
+                return;
+            }
+            CompletableFuture<LockHandle> second;
+            try {
+                second = next.get().toCompletableFuture();
+            } catch (RuntimeException | Error e) {
+                outer.unlock();
+                result.completeExceptionally(e);
+                return;
+            }
+            second.whenComplete((inner, innerError) -> {
+                if (innerError != null) {
+                    outer.unlock();
+                    result.completeExceptionally(innerError);
+                    return;
+                }
+                LockHandle handle = () -> {
+                    try {
+                        inner.unlock();
+                    } finally {
+                        outer.unlock();
+                    }
+                };
+                if (!result.complete(handle)) {
+                    handle.unlock();
+                }
+            });
+            result.whenComplete((handle, resultError) -> {
+                if (resultError != null) {
+                    second.cancel(false);
+                }
+            });
+        });
+        result.whenComplete((handle, error) -> {
+            if (error != null) {
+                first.cancel(false);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package org.locker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+public final class AsyncNoDeadLockEntityLocker<ID> implements AsyncEntityLocker<ID> {
+    private final WaitForGraph<ID> waitForGraph;
+    private final AsyncEntityLocker<ID> locker;
+
+    public AsyncNoDeadLockEntityLocker(AsyncEntityLocker<ID> locker) {
+        this.locker = locker;
+        waitForGraph = new WaitForGraph<>();
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id) {
+        return lockAsync(id, () -> locker.lockAsync(id));
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id, long timeout, TimeUnit unit) {
+        return lockAsync(id, () -> locker.lockAsync(id, timeout, unit));
+    }
+
+    private CompletionStage<LockHandle> lockAsync(ID id, Supplier<CompletionStage<LockHandle>> acquisition) {
+        LockOwner owner = LockOwner.current();
+        boolean pending = waitForGraph.isHeldByOther(id, owner, false);
+        if (pending && !waitForGraph.addPendingResourceIfNoDeadlock(id, owner, false)) {
+            return CompletableFuture.failedFuture(new DeadlockDetectedException(
+                    format("Deadlock detected. Thread id %s could not lock %s.", Thread.currentThread().getId(), id)));
+        }
+        return AsyncLocks.wrap(acquisition.get().toCompletableFuture(), handle -> {
+            if (pending) {
+                waitForGraph.removePendingResource(owner, id);
+            }
+            WaitForGraph.Resource resource = waitForGraph.addOwner(id, owner, false);
+            return () -> {
+                waitForGraph.removeOwner(id, resource, owner, false);
+                handle.unlock();
+            };
+        }, () -> {
+            if (pending) {
+                waitForGraph.removePendingResource(owner, id);
+            }
+        });
+    }
+}
@@ -0,0 +1,194 @@
+package org.locker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class BackgroundNoDeadLockEntityLocker<ID> implements EntityLocker<ID>, AutoCloseable {
+    private static final long DEFAULT_INTERVAL_MILLIS = 100;
+    private final WaitForGraph<ID> waitForGraph = new WaitForGraph<>();
+    private final Map<LockOwner, Waiter> waiters = new ConcurrentHashMap<>();
+    private final EntityLocker<ID> locker;
+    private final VictimSelectionPolicy victimSelectionPolicy;
+    private final ScheduledExecutorService detector;
+
+    public BackgroundNoDeadLockEntityLocker(EntityLocker<ID> locker) {
+        this(locker, DEFAULT_INTERVAL_MILLIS, MILLISECONDS, VictimSelectionPolicy.YOUNGEST);
+    }
+
+    public BackgroundNoDeadLockEntityLocker(EntityLocker<ID> locker, long interval, TimeUnit unit, VictimSelectionPolicy victimSelectionPolicy) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Detection interval must be positive: " + interval);
+        }
+        this.locker = locker;
+        this.victimSelectionPolicy = victimSelectionPolicy;
+        this.detector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-locker-deadlock-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        detector.scheduleWithFixedDelay(this::detectDeadlocks, interval, interval, unit);
+    }
+
+    @Override
+    public void lock(ID id) {
+        LockOwner owner = LockOwner.current();
+        if (!tryLockNow(id)) {
+            try {
+                await(id, owner, false, 0);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        waitForGraph.addOwner(id, owner, false);
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.current();
+        if (!tryLockNow(id) && !await(id, owner, true, unit.toNanos(timeout))) {
+            return false;
+        }
+        waitForGraph.addOwner(id, owner, false);
+        return true;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        waitForGraph.removeOwner(id, LockOwner.current(), false);
+        locker.unlock(id);
+    }
+
+    @Override
+    public void close() {
+        detector.shutdownNow();
+    }
+
+    private void detectDeadlocks() {
+        try {
+            for (List<LockOwner> cycle : waitForGraph.findDeadlockedOwners()) {
+                abortVictim(cycle);
+            }
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private void abortVictim(List<LockOwner> cycle) {
+        List<DeadlockCandidate> candidates = new ArrayList<>(cycle.size());
+        List<Waiter> cycleWaiters = new ArrayList<>(cycle.size());
+        for (LockOwner owner : cycle) {
+            Waiter waiter = waiters.get(owner);
+            if (waiter == null || !waiter.isWaiting()) {
+                return;
+            }
+            candidates.add(new DeadlockCandidate(waiter.thread, waiter.waitingSince, waitForGraph.getHeldResourcesNumber(owner)));
+            cycleWaiters.add(waiter);
+        }
+        DeadlockCandidate victim = victimSelectionPolicy.selectVictim(candidates);
+        cycleWaiters.get(candidates.indexOf(victim)).abort();
+    }
+
+    private boolean await(ID id, LockOwner owner, boolean timed, long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        Waiter waiter = new Waiter(Thread.currentThread());
+        waiters.put(owner, waiter);
+        waitForGraph.addPendingResource(id, owner, false);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    boolean locked = locker.tryLock(id, timed ? deadline - System.nanoTime() : Long.MAX_VALUE, NANOSECONDS);
+                    if (!waiter.complete()) {
+                        if (locked) {
+                            locker.unlock(id);
+                        }
+                        throw deadlockDetected(id);
+                    }
+                    return locked;
+                } catch (InterruptedException e) {
+                    if (!waiter.isWaiting()) {
+                        waiter.awaitAborted();
+                        throw deadlockDetected(id);
+                    }
+                    if (timed) {
+                        throw e;
+                    }
+                    interrupted = true;
+                }
+            }
+        } finally {
+            waitForGraph.removePendingResource(owner);
+            waiters.remove(owner, waiter);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean tryLockNow(ID id) {
+        try {
+            return locker.tryLock(id, 0, NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private DeadlockDetectedException deadlockDetected(ID id) {
+        return new DeadlockDetectedException(format("Deadlock detected. Thread id %s was chosen as a victim while waiting for %s.",
+                Thread.currentThread().getId(), id));
+    }
+
+    private static final class Waiter {
+        private static final AtomicIntegerFieldUpdater<Waiter> STATE = AtomicIntegerFieldUpdater.newUpdater(Waiter.class, "state");
+        private static final int WAITING = 0;
+        private static final int ABORTING = 1;
+        private static final int ABORTED = 2;
+        private static final int COMPLETED = 3;
+        private final Thread thread;
+        private final long waitingSince;
+        private volatile int state;
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+            this.waitingSince = System.nanoTime();
+        }
+
+        private boolean isWaiting() {
+            return state == WAITING;
+        }
+
+        private void abort() {
+            if (STATE.compareAndSet(this, WAITING, ABORTING)) {
+                thread.interrupt();
+                state = ABORTED;
+            }
+        }
+
+        private boolean complete() {
+            if (STATE.compareAndSet(this, WAITING, COMPLETED)) {
+                return true;
+            }
+            awaitAborted();
+            return false;
+        }
+
+        private void awaitAborted() {
+            while (state == ABORTING) {
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+        }
+    }
+}
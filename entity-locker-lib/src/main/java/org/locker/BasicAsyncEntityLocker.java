@@ -0,0 +1,90 @@
+package org.locker;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class BasicAsyncEntityLocker<ID> implements AsyncEntityLocker<ID> {
+    private final Map<ID, ArrayDeque<CompletableFuture<LockHandle>>> waiters = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id) {
+        return acquire(id);
+    }
+
+    @Override
+    public CompletionStage<LockHandle> lockAsync(ID id, long timeout, TimeUnit unit) {
+        return AsyncLocks.withTimeout(acquire(id), timeout, unit);
+    }
+
+    int getLocksNumber() {
+        return waiters.size();
+    }
+
+    int getWaitersNumber(ID id) {
+        ArrayDeque<CompletableFuture<LockHandle>> queue = waiters.get(id);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private CompletableFuture<LockHandle> acquire(ID id) {
+        CompletableFuture<LockHandle> future = new CompletableFuture<>();
+        AtomicBoolean acquired = new AtomicBoolean();
+        waiters.compute(id, (key, queue) -> {
+            if (queue == null) {
+                acquired.set(true);
+                return new ArrayDeque<>(2);
+            }
+            queue.addLast(future);
+            return queue;
+        });
+        if (acquired.get()) {
+            future.complete(new Handle(id));
+            return future;
+        }
+        future.whenComplete((handle, error) -> {
+            if (error != null) {
+                waiters.computeIfPresent(id, (key, queue) -> {
+                    queue.remove(future);
+                    return queue;
+                });
+            }
+        });
+        return future;
+    }
+
+    private void release(ID id) {
+        while (true) {
+            AtomicReference<CompletableFuture<LockHandle>> next = new AtomicReference<>();
+            waiters.computeIfPresent(id, (key, queue) -> {
+                next.set(queue.pollFirst());
+                return next.get() == null ? null : queue;
+            });
+            CompletableFuture<LockHandle> waiter = next.get();
+            if (waiter == null || waiter.complete(new Handle(id))) {
+                return;
+            }
+        }
+    }
+
+    private final class Handle implements LockHandle {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final ID id;
+
+        private Handle(ID id) {
+            this.id = id;
+        }
+
+        @Override
+        public void unlock() {
+            if (!released.compareAndSet(false, true)) {
+                throw new IllegalMonitorStateException("Lock of " + id + " is already released");
+            }
+            release(id);
+        }
+    }
+}
@@ -3,13 +3,22 @@ package org.locker;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 
 public final class BasicEntityLocker<ID> implements EntityLocker<ID> {
     private final Map<ID, LockWrapper> locks;
+    private final int maxBypasses;
+    private final AdaptiveSpin spin;
 
     public BasicEntityLocker() {
+        this(WaitStrategy.unfair());
+    }
+
+    public BasicEntityLocker(WaitStrategy strategy) {
         locks = new ConcurrentHashMap<>();
+        maxBypasses = strategy.getMaxBypasses();
+        spin = strategy.getMaxSpinNanos() > 0 ? new AdaptiveSpin(strategy.getMaxSpinNanos()) : null;
     }
 
     @Override
@@ -28,60 +37,229 @@ public final class BasicEntityLocker<ID> implements EntityLocker<ID> {
 
     @Override
     public void unlock(ID id) {
-        locks.computeIfPresent(id, this::releaseLockAndRemoveIfNotUsed);
+        LockWrapper wrapper = locks.get(id);
+        if (wrapper != null) {
+            releaseLockAndRemoveIfNotUsed(id, wrapper);
+        }
+    }
+
+    @Override
+    public LockHandle acquire(ID id) {
+        LockWrapper wrapper = locks.compute(id, this::createLockWrapperOrGetOld);
+        wrapper.getLock().lock();
+        return () -> releaseLockAndRemoveIfNotUsed(id, wrapper);
+    }
+
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockWrapper wrapper = getLock(id, timeout, unit);
+        if (wrapper == null) {
+            return null;
+        }
+        return () -> releaseLockAndRemoveIfNotUsed(id, wrapper);
     }
 
-    private ReentrantLock getLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
-        ReentrantLock lock = locks.compute(id, this::createLockWrapperOrGetOld).getLock();
-        if (timeout >= 0 && unit != null) {
-            if (!lock.tryLock(timeout, unit)) {
+    private LockWrapper getLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockWrapper wrapper = locks.compute(id, this::createLockWrapperOrGetOld);
+        EntityLock lock = wrapper.getLock();
+        if (unit != null) {
+            boolean locked = false;
+            try {
+                locked = lock.tryLock(timeout, unit);
+            } finally {
+                if (!locked) {
+                    removeIfNotUsed(id, wrapper);
+                }
+            }
+            if (!locked) {
                 return null;
             }
         } else {
             lock.lock();
         }
-        return lock;
+        return wrapper;
     }
 
     int getLocksNumber() {
         return locks.size();
     }
 
+    int getQueueLength(ID id) {
+        LockWrapper wrapper = locks.get(id);
+        return wrapper == null ? 0 : wrapper.getLock().getQueueLength();
+    }
+
     private LockWrapper createLockWrapperOrGetOld(ID id, LockWrapper oldWrapper) {
-        if (oldWrapper == null) {
-            oldWrapper = new LockWrapper();
+        if (oldWrapper == null || !oldWrapper.incrementCounterIfUsed()) {
+            return new LockWrapper(new EntityLock(maxBypasses, spin));
         }
-        oldWrapper.incrementCounter();
         return oldWrapper;
     }
 
-    private LockWrapper releaseLockAndRemoveIfNotUsed(ID id, LockWrapper wrapper) {
+    private void releaseLockAndRemoveIfNotUsed(ID id, LockWrapper wrapper) {
         wrapper.getLock().unlock();
+        removeIfNotUsed(id, wrapper);
+    }
+
+    private void removeIfNotUsed(ID id, LockWrapper wrapper) {
         if (wrapper.decrementAndGetCounter() == 0) {
-            return null;
+            locks.remove(id, wrapper);
         }
-        return wrapper;
     }
 
     private static class LockWrapper {
-        private final ReentrantLock lock;
-        private int counter;
+        private final EntityLock lock;
+        private final AtomicInteger counter;
 
-        private LockWrapper() {
-            this.lock = new ReentrantLock();
+        private LockWrapper(EntityLock lock) {
+            this.lock = lock;
+            this.counter = new AtomicInteger(1);
         }
 
-        public ReentrantLock getLock() {
+        public EntityLock getLock() {
             return lock;
         }
 
-        public void incrementCounter() {
-            counter++;
+        public boolean incrementCounterIfUsed() {
+            while (true) {
+                int current = counter.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (counter.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
         }
 
         public int decrementAndGetCounter() {
-            counter--;
-            return counter;
+            return counter.decrementAndGet();
+        }
+    }
+
+    private static final class AdaptiveSpin {
+        private final long maxSpinNanos;
+        private volatile long holdNanos;
+
+        private AdaptiveSpin(long maxSpinNanos) {
+            this.maxSpinNanos = maxSpinNanos;
+            this.holdNanos = maxSpinNanos / 2;
+        }
+
+        private long getSpinNanos() {
+            long spinNanos = holdNanos * 2;
+            return spinNanos > maxSpinNanos ? 0 : spinNanos;
+        }
+
+        private void recordHold(long nanos) {
+            long current = holdNanos;
+            holdNanos = current + ((nanos - current) >> 3);
+        }
+    }
+
+    private static final class EntityLock extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+        private final int maxBypasses;
+        private final AdaptiveSpin spin;
+        private int bypasses;
+        private long acquiredAt;
+        private volatile boolean contended;
+
+        private EntityLock(int maxBypasses, AdaptiveSpin spin) {
+            this.maxBypasses = maxBypasses;
+            this.spin = spin;
+        }
+
+        private void lock() {
+            if (tryAcquire(1) || spin(Long.MAX_VALUE)) {
+                return;
+            }
+            contended = true;
+            acquire(1);
+        }
+
+        private boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = unit.toNanos(timeout);
+            long deadline = System.nanoTime() + nanos;
+            if (tryAcquire(1) || spin(nanos)) {
+                return true;
+            }
+            contended = true;
+            return tryAcquireNanos(1, deadline - System.nanoTime());
+        }
+
+        private void unlock() {
+            release(1);
+        }
+
+        private boolean spin(long maxNanos) {
+            if (spin == null) {
+                return false;
+            }
+            long spinNanos = Math.min(spin.getSpinNanos(), maxNanos);
+            if (spinNanos <= 0) {
+                return false;
+            }
+            contended = true;
+            long deadline = System.nanoTime() + spinNanos;
+            do {
+                Thread.onSpinWait();
+                if (getState() == 0 && tryAcquire(1)) {
+                    return true;
+                }
+            } while (System.nanoTime() - deadline < 0);
+            return false;
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int state = getState();
+            if (state == 0) {
+                boolean barging = maxBypasses != WaitStrategy.UNBOUNDED_BYPASSES && hasQueuedPredecessors();
+                if (barging && bypasses >= maxBypasses) {
+                    return false;
+                }
+                if (!compareAndSetState(0, acquires)) {
+                    return false;
+                }
+                setExclusiveOwnerThread(current);
+                bypasses = barging ? bypasses + 1 : 0;
+                if (spin != null) {
+                    acquiredAt = System.nanoTime();
+                }
+                return true;
+            }
+            if (getExclusiveOwnerThread() == current) {
+                setState(state + acquires);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            int state = getState() - releases;
+            if (state == 0) {
+                setExclusiveOwnerThread(null);
+                if (spin != null && contended) {
+                    contended = false;
+                    spin.recordHold(System.nanoTime() - acquiredAt);
+                }
+            }
+            setState(state);
+            return state == 0;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
         }
     }
 }
@@ -0,0 +1,223 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class BasicLongEntityLocker implements LongEntityLocker {
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final int SEGMENT_POOL_SIZE = 16;
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public BasicLongEntityLocker() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public BasicLongEntityLocker(int segmentsNumber) {
+        if (segmentsNumber <= 0 || segmentsNumber > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Segments number must be in range (0, " + MAX_SEGMENTS + "]: " + segmentsNumber);
+        }
+        int size = Math.max(Integer.highestOneBit(segmentsNumber - 1) << 1, 1);
+        segments = new Segment[size];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        segmentShift = 64 - Integer.numberOfTrailingZeros(size);
+    }
+
+    @Override
+    public void lock(long id) {
+        long hash = hash(id);
+        getSegment(hash).acquireReference(id, hash).acquire(1);
+    }
+
+    @Override
+    public boolean tryLock(long id, long timeout, TimeUnit unit) throws InterruptedException {
+        long hash = hash(id);
+        Segment segment = getSegment(hash);
+        LockNode node = segment.acquireReference(id, hash);
+        boolean locked = false;
+        try {
+            locked = node.tryAcquireNanos(1, unit.toNanos(timeout));
+            return locked;
+        } finally {
+            if (!locked) {
+                segment.releaseReference(id, hash, false);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(long id) {
+        long hash = hash(id);
+        getSegment(hash).releaseReference(id, hash, true);
+    }
+
+    int getLocksNumber() {
+        int number = 0;
+        for (Segment segment : segments) {
+            segment.lock();
+            try {
+                number += segment.size;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return number;
+    }
+
+    private Segment getSegment(long hash) {
+        return segments[(int) (hash >>> segmentShift) & (segments.length - 1)];
+    }
+
+    private static long hash(long id) {
+        long h = id;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static final class Segment extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private LockNode[] nodes = new LockNode[INITIAL_SEGMENT_CAPACITY];
+        private final LockNode[] pool = new LockNode[SEGMENT_POOL_SIZE];
+        private int pooled;
+        private int size;
+
+        private LockNode acquireReference(long id, long hash) {
+            lock();
+            try {
+                int slot = find(id, hash);
+                if (slot < 0) {
+                    if ((size + 1) * 2 > keys.length) {
+                        resize();
+                        slot = find(id, hash);
+                    }
+                    slot = -slot - 1;
+                    keys[slot] = id;
+                    nodes[slot] = pooled == 0 ? new LockNode() : pool[--pooled];
+                    size++;
+                }
+                LockNode node = nodes[slot];
+                node.references++;
+                return node;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void releaseReference(long id, long hash, boolean release) {
+            lock();
+            try {
+                int slot = find(id, hash);
+                if (slot < 0) {
+                    return;
+                }
+                LockNode node = nodes[slot];
+                if (release) {
+                    node.release(1);
+                }
+                if (--node.references == 0) {
+                    remove(slot);
+                    if (pooled < pool.length) {
+                        pool[pooled++] = node;
+                    }
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        private int find(long id, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (nodes[slot] != null) {
+                if (keys[slot] == id) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -slot - 1;
+        }
+
+        private void remove(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (nodes[next] == null) {
+                    break;
+                }
+                int ideal = (int) hash(keys[next]) & mask;
+                boolean movable = hole <= next
+                        ? ideal <= hole || ideal > next
+                        : ideal <= hole && ideal > next;
+                if (movable) {
+                    keys[hole] = keys[next];
+                    nodes[hole] = nodes[next];
+                    hole = next;
+                }
+            }
+            nodes[hole] = null;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            LockNode[] oldNodes = nodes;
+            keys = new long[oldKeys.length * 2];
+            nodes = new LockNode[oldNodes.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldNodes[i] != null) {
+                    int slot = -find(oldKeys[i], hash(oldKeys[i])) - 1;
+                    keys[slot] = oldKeys[i];
+                    nodes[slot] = oldNodes[i];
+                }
+            }
+        }
+    }
+
+    private static final class LockNode extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+        private int references;
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            int state = getState();
+            if (state == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(Thread.currentThread());
+                    return true;
+                }
+                return false;
+            }
+            if (getExclusiveOwnerThread() == Thread.currentThread()) {
+                setState(state + acquires);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            int state = getState() - releases;
+            if (state == 0) {
+                setExclusiveOwnerThread(null);
+            }
+            setState(state);
+            return state == 0;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+    }
+}
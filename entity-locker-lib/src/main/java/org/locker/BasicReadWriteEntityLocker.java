@@ -0,0 +1,123 @@
+package org.locker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public final class BasicReadWriteEntityLocker<ID> implements ReadWriteEntityLocker<ID> {
+    private final Map<ID, LockWrapper> locks;
+
+    public BasicReadWriteEntityLocker() {
+        locks = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void lock(ID id) {
+        try {
+            this.tryLock(id, 0, null);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockWrapper wrapper = locks.compute(id, this::createLockWrapperOrGetOld);
+        return acquire(id, wrapper.getLock().writeLock(), timeout, unit);
+    }
+
+    @Override
+    public void unlock(ID id) {
+        locks.computeIfPresent(id, this::releaseExclusiveLockAndRemoveIfNotUsed);
+    }
+
+    @Override
+    public void lockShared(ID id) {
+        try {
+            this.tryLockShared(id, 0, null);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean tryLockShared(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockWrapper wrapper = locks.compute(id, this::createLockWrapperOrGetOld);
+        return acquire(id, wrapper.getLock().readLock(), timeout, unit);
+    }
+
+    @Override
+    public void unlockShared(ID id) {
+        locks.computeIfPresent(id, this::releaseSharedLockAndRemoveIfNotUsed);
+    }
+
+    int getLocksNumber() {
+        return locks.size();
+    }
+
+    private boolean acquire(ID id, Lock lock, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean locked = false;
+        try {
+            if (unit != null) {
+                locked = lock.tryLock(timeout, unit);
+            } else {
+                lock.lock();
+                locked = true;
+            }
+            return locked;
+        } finally {
+            if (!locked) {
+                locks.computeIfPresent(id, this::removeIfNotUsed);
+            }
+        }
+    }
+
+    private LockWrapper createLockWrapperOrGetOld(ID id, LockWrapper oldWrapper) {
+        if (oldWrapper == null) {
+            oldWrapper = new LockWrapper();
+        }
+        oldWrapper.incrementCounter();
+        return oldWrapper;
+    }
+
+    private LockWrapper releaseExclusiveLockAndRemoveIfNotUsed(ID id, LockWrapper wrapper) {
+        wrapper.getLock().writeLock().unlock();
+        return removeIfNotUsed(id, wrapper);
+    }
+
+    private LockWrapper releaseSharedLockAndRemoveIfNotUsed(ID id, LockWrapper wrapper) {
+        wrapper.getLock().readLock().unlock();
+        return removeIfNotUsed(id, wrapper);
+    }
+
+    private LockWrapper removeIfNotUsed(ID id, LockWrapper wrapper) {
+        if (wrapper.decrementAndGetCounter() == 0) {
+            return null;
+        }
+        return wrapper;
+    }
+
+    private static class LockWrapper {
+        private final ReentrantReadWriteLock lock;
+        private int counter;
+
+        private LockWrapper() {
+            this.lock = new ReentrantReadWriteLock();
+        }
+
+        public ReentrantReadWriteLock getLock() {
+            return lock;
+        }
+
+        public void incrementCounter() {
+            counter++;
+        }
+
+        public int decrementAndGetCounter() {
+            counter--;
+            return counter;
+        }
+    }
+}
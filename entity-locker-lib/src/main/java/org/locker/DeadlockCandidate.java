@@ -0,0 +1,29 @@
+package org.locker;
+
+public final class DeadlockCandidate {
+    private final Thread thread;
+    private final long waitingSince;
+    private final int locksHeld;
+
+    DeadlockCandidate(Thread thread, long waitingSince, int locksHeld) {
+        this.thread = thread;
+        this.waitingSince = waitingSince;
+        this.locksHeld = locksHeld;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public long getWaitingSince() {
+        return waitingSince;
+    }
+
+    public int getLocksHeld() {
+        return locksHeld;
+    }
+
+    public int getPriority() {
+        return thread.getPriority();
+    }
+}
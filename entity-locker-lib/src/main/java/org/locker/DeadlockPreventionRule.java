@@ -0,0 +1,6 @@
+package org.locker;
+
+public enum DeadlockPreventionRule {
+    WAIT_DIE,
+    WOUND_WAIT
+}
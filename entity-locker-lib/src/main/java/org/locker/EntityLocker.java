@@ -1,5 +1,6 @@
 package org.locker;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 public interface EntityLocker<ID> {
@@ -9,4 +10,28 @@ public interface EntityLocker<ID> {
     boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException;
 
     void unlock(ID id);
+
+    default LockHandle acquire(ID id) {
+        lock(id);
+        return () -> unlock(id);
+    }
+
+    default LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!tryLock(id, timeout, unit)) {
+            return null;
+        }
+        return () -> unlock(id);
+    }
+
+    default void lockAll(Collection<ID> ids) {
+        LockOrdering.lockAll(this, LockOrdering.sort(ids));
+    }
+
+    default boolean tryLockAll(Collection<ID> ids, long timeout, TimeUnit unit) throws InterruptedException {
+        return LockOrdering.tryLockAll(this, LockOrdering.sort(ids), timeout, unit);
+    }
+
+    default void unlockAll(Collection<ID> ids) {
+        LockOrdering.unlockAll(this, LockOrdering.sort(ids));
+    }
 }
@@ -1,59 +1,535 @@
 package org.locker;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static java.lang.String.format;
 
 public final class EscalationEntityLocker<ID> implements EntityLocker<ID> {
-    private final int threshold;
+    private static final long ENTRY_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int LOCK_TABLE_SAMPLING_MASK = 0xFF;
+    private final EscalationPolicy policy;
     private final EntityLocker<ID> locker;
-    private final ReentrantLock escalatedLock = new ReentrantLock();
-    private final ThreadLocal<Integer> locksCounter = new ThreadLocal<>();
+    private final Function<? super ID, ?> partitioner;
+    private final Coarse global = new Coarse();
+    private final Map<Object, Coarse> partitions = new ConcurrentHashMap<>();
+    private final LongAdder fineLocks = new LongAdder();
+    private final LongAdder escalations = new LongAdder();
+    private final LongAdder deEscalations = new LongAdder();
 
     public EscalationEntityLocker(EntityLocker<ID> locker, int threshold) {
+        this(locker, EscalationPolicy.fixed(threshold), null);
+    }
+
+    public EscalationEntityLocker(EntityLocker<ID> locker, int threshold, Function<? super ID, ?> partitioner) {
+        this(locker, EscalationPolicy.fixed(threshold), partitioner);
+    }
+
+    public EscalationEntityLocker(EntityLocker<ID> locker, EscalationPolicy policy) {
+        this(locker, policy, null);
+    }
+
+    public EscalationEntityLocker(EntityLocker<ID> locker, EscalationPolicy policy, Function<? super ID, ?> partitioner) {
         this.locker = locker;
-        this.threshold = threshold;
+        this.policy = policy;
+        this.partitioner = partitioner;
     }
 
+    @Override
     public void lock(ID id) {
-        locker.lock(id);
-        int counter = incrementAndGetCounter();
-        if (counter > threshold) {
-            escalatedLock.lock();
-        }
+        Object partition = partitionOf(id);
+        lock(id, partition, stateOf(LockOwner.current()));
     }
 
+    @Override
     public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
-        if (!locker.tryLock(id, timeout, unit)) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Object partition = partitionOf(id);
+        return tryLock(id, partition, stateOf(LockOwner.current()), deadline) != null;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Object partition = partitionOf(id);
+        State<ID> state = stateOf(LockOwner.current());
+        unlock(id, partition, state, state.held.get(partition));
+    }
+
+    @Override
+    public LockHandle acquire(ID id) {
+        Object partition = partitionOf(id);
+        State<ID> state = stateOf(LockOwner.current());
+        Held<ID> held = lock(id, partition, state);
+        return () -> unlock(id, partition, state, held);
+    }
+
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Object partition = partitionOf(id);
+        State<ID> state = stateOf(LockOwner.current());
+        Held<ID> held = tryLock(id, partition, state, deadline);
+        if (held == null) {
+            return null;
+        }
+        return () -> unlock(id, partition, state, held);
+    }
+
+    @Override
+    public void lockAll(Collection<ID> ids) {
+        List<ID> orderedIds = LockOrdering.sort(ids);
+        State<ID> state = stateOf(LockOwner.current());
+        List<Object> entered = new ArrayList<>();
+        try {
+            escalateUpFront(orderedIds, state, entered, false, 0);
+            LockOrdering.lockAll(this, orderedIds);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            leaveAllIfUnused(entered, state);
+        }
+    }
+
+    @Override
+    public boolean tryLockAll(Collection<ID> ids, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<ID> orderedIds = LockOrdering.sort(ids);
+        State<ID> state = stateOf(LockOwner.current());
+        List<Object> entered = new ArrayList<>();
+        try {
+            return escalateUpFront(orderedIds, state, entered, true, deadline)
+                    && LockOrdering.tryLockAll(this, orderedIds, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            leaveAllIfUnused(entered, state);
+        }
+    }
+
+    public int getThreshold() {
+        return policy.getThreshold();
+    }
+
+    public long getEscalations() {
+        return escalations.sum();
+    }
+
+    public long getDeEscalations() {
+        return deEscalations.sum();
+    }
+
+    private Held<ID> lock(ID id, Object partition, State<ID> state) {
+        Held<ID> held = state.held.get(partition);
+        if (held == null) {
+            try {
+                held = enter(partition, state, false, 0);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        if (!held.escalated) {
+            try {
+                lockFine(id, state);
+            } catch (Throwable e) {
+                leaveIfUnused(partition, held, state);
+                throw e;
+            }
+            onFineLock(state);
+        }
+        held.add(id);
+        escalateIfNeeded(held, state);
+        return held;
+    }
+
+    private Held<ID> tryLock(ID id, Object partition, State<ID> state, long deadline) throws InterruptedException {
+        Held<ID> held = state.held.get(partition);
+        if (held == null) {
+            held = enter(partition, state, true, deadline);
+            if (held == null) {
+                return null;
+            }
+        }
+        if (!held.escalated) {
+            boolean locked = false;
+            try {
+                locked = tryLockFine(id, state, deadline);
+            } finally {
+                if (!locked) {
+                    leaveIfUnused(partition, held, state);
+                }
+            }
+            if (!locked) {
+                return null;
+            }
+            onFineLock(state);
+        }
+        held.add(id);
+        escalateIfNeeded(held, state);
+        return held;
+    }
+
+    private void unlock(ID id, Object partition, State<ID> state, Held<ID> held) {
+        if (held == null || !held.remove(id)) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current owner");
+        }
+        if (!held.escalated) {
+            locker.unlock(id);
+            fineLocks.decrement();
+        }
+        if (!leaveIfUnused(partition, held, state)) {
+            deEscalateIfNeeded(held, state);
+        }
+    }
+
+    private boolean escalateUpFront(List<ID> orderedIds, State<ID> state, List<Object> entered, boolean timed, long deadline) throws InterruptedException {
+        Map<Object, Integer> batches = new LinkedHashMap<>();
+        for (ID id : orderedIds) {
+            batches.merge(partitionOf(id), 1, Integer::sum);
+        }
+        for (Map.Entry<Object, Integer> batch : batches.entrySet()) {
+            Object partition = batch.getKey();
+            Held<ID> held = state.held.get(partition);
+            int count = (held == null ? 0 : held.count) + batch.getValue();
+            if (count <= policy.getThreshold() || held != null && held.escalated) {
+                continue;
+            }
+            if (held == null) {
+                held = enter(partition, state, timed, deadline);
+                if (held == null) {
+                    return false;
+                }
+                entered.add(partition);
+            }
+            if (!escalate(held, state)) {
+                held.nextEscalation = count * 2;
+            }
+        }
+        return true;
+    }
+
+    private void leaveAllIfUnused(List<Object> partitions, State<ID> state) {
+        for (Object partition : partitions) {
+            Held<ID> held = state.held.get(partition);
+            if (held != null) {
+                leaveIfUnused(partition, held, state);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private State<ID> stateOf(LockOwner owner) {
+        State<ID> state = (State<ID>) owner.getAttachment(this);
+        if (state == null) {
+            state = new State<>();
+            owner.attach(this, state);
+        }
+        return state;
+    }
+
+    private Object partitionOf(ID id) {
+        return partitioner == null ? global : partitioner.apply(id);
+    }
+
+    private Held<ID> enter(Object partition, State<ID> state, boolean timed, long deadline) throws InterruptedException {
+        Coarse coarse = retain(partition);
+        boolean entered = false;
+        try {
+            while (true) {
+                coarse.shared.incrementAndGet();
+                if (coarse.escalator == null) {
+                    break;
+                }
+                leaveShared(coarse);
+                if (!awaitDeEscalation(coarse, state, timed, deadline)) {
+                    return null;
+                }
+            }
+            entered = true;
+        } finally {
+            if (!entered) {
+                release(partition);
+            }
+        }
+        Held<ID> held = new Held<>(coarse);
+        state.held.put(partition, held);
+        return held;
+    }
+
+    private boolean awaitDeEscalation(Coarse coarse, State<ID> state, boolean timed, long deadline) throws InterruptedException {
+        boolean holding = !state.held.isEmpty();
+        if (!holding && !timed) {
+            coarse.exclusive.acquireUninterruptibly();
+            coarse.exclusive.release();
+            return true;
+        }
+        state.blocked = true;
+        try {
+            while (true) {
+                if (holding && isEscalatorBlocked(coarse)) {
+                    throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not enter a partition escalated by a blocked owner.",
+                            Thread.currentThread().getId()));
+                }
+                long nanos = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+                if (nanos <= 0) {
+                    return false;
+                }
+                if (coarse.exclusive.tryAcquire(holding ? Math.min(nanos, ENTRY_CHECK_NANOS) : nanos, TimeUnit.NANOSECONDS)) {
+                    coarse.exclusive.release();
+                    return true;
+                }
+            }
+        } finally {
+            state.blocked = false;
+        }
+    }
+
+    private static boolean isEscalatorBlocked(Coarse coarse) {
+        State<?> escalator = coarse.escalator;
+        return escalator != null && escalator.blocked;
+    }
+
+    private void lockFine(ID id, State<ID> state) {
+        if (state.escalated == 0) {
+            locker.lock(id);
+            return;
+        }
+        if (tryLockNow(id)) {
+            return;
+        }
+        state.blocked = true;
+        try {
+            locker.lock(id);
+        } finally {
+            state.blocked = false;
+        }
+    }
+
+    private boolean tryLockFine(ID id, State<ID> state, long deadline) throws InterruptedException {
+        if (state.escalated == 0) {
+            return locker.tryLock(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        if (locker.tryLock(id, 0, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        state.blocked = true;
+        try {
+            return locker.tryLock(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            state.blocked = false;
+        }
+    }
+
+    private boolean tryLockNow(ID id) {
+        try {
+            return locker.tryLock(id, 0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean leaveIfUnused(Object partition, Held<ID> held, State<ID> state) {
+        if (held.count > 0) {
             return false;
         }
-        int counter = incrementAndGetCounter();
-        if (counter > threshold) {
-            return escalatedLock.tryLock(timeout, unit);
+        Coarse coarse = held.coarse;
+        if (held.escalated) {
+            state.escalated--;
+            coarse.escalator = null;
+            coarse.exclusive.release();
         }
+        leaveShared(coarse);
+        state.held.remove(partition);
+        release(partition);
         return true;
     }
 
-    public void unlock(ID id) {
-        int counter = decrementAndGetCounter();
-        if (counter > threshold) {
-            escalatedLock.unlock();
+    private void onFineLock(State<ID> state) {
+        fineLocks.increment();
+        if ((++state.fineLocks & LOCK_TABLE_SAMPLING_MASK) == 0) {
+            policy.onLockTableSize(fineLocks.sum());
+        }
+    }
+
+    private void escalateIfNeeded(Held<ID> held, State<ID> state) {
+        int count = held.count;
+        if (held.escalated || count <= policy.getThreshold() || count < held.nextEscalation) {
+            return;
+        }
+        if (!escalate(held, state)) {
+            held.nextEscalation = count * 2;
+        }
+    }
+
+    private boolean escalate(Held<ID> held, State<ID> state) {
+        long start = System.nanoTime();
+        if (!tryEscalate(held.coarse, state)) {
+            policy.onFailedEscalation(System.nanoTime() - start);
+            return false;
+        }
+        policy.onEscalation(System.nanoTime() - start);
+        escalations.increment();
+        held.escalated = true;
+        state.escalated++;
+        for (Map.Entry<ID, int[]> hold : held.holds.entrySet()) {
+            for (int i = 0; i < hold.getValue()[0]; i++) {
+                locker.unlock(hold.getKey());
+            }
+        }
+        fineLocks.add(-held.count);
+        return true;
+    }
+
+    private void deEscalateIfNeeded(Held<ID> held, State<ID> state) {
+        if (!held.escalated || held.count > policy.getThreshold() / 2) {
+            return;
+        }
+        int locked = relockFine(held);
+        if (locked < held.count) {
+            unlockFine(held, locked);
+            return;
+        }
+        fineLocks.add(locked);
+        held.escalated = false;
+        held.nextEscalation = 0;
+        state.escalated--;
+        held.coarse.escalator = null;
+        held.coarse.exclusive.release();
+        deEscalations.increment();
+    }
+
+    private int relockFine(Held<ID> held) {
+        int locked = 0;
+        try {
+            for (Map.Entry<ID, int[]> hold : held.holds.entrySet()) {
+                for (int i = 0; i < hold.getValue()[0]; i++) {
+                    if (!locker.tryLock(hold.getKey(), 0, TimeUnit.NANOSECONDS)) {
+                        return locked;
+                    }
+                    locked++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return locked;
+    }
+
+    private void unlockFine(Held<ID> held, int locked) {
+        for (Map.Entry<ID, int[]> hold : held.holds.entrySet()) {
+            for (int i = 0; i < hold.getValue()[0] && locked > 0; i++, locked--) {
+                locker.unlock(hold.getKey());
+            }
+        }
+    }
+
+    private static void leaveShared(Coarse coarse) {
+        if (coarse.shared.decrementAndGet() == 1) {
+            Thread drainer = coarse.drainer;
+            if (drainer != null) {
+                LockSupport.unpark(drainer);
+            }
+        }
+    }
+
+    private boolean tryEscalate(Coarse coarse, State<ID> state) {
+        long waitNanos = policy.getEscalationWaitNanos();
+        long deadline = System.nanoTime() + waitNanos;
+        try {
+            if (!coarse.exclusive.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        coarse.drainer = Thread.currentThread();
+        coarse.escalator = state;
+        try {
+            while (coarse.shared.get() != 1) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    coarse.escalator = null;
+                    coarse.exclusive.release();
+                    return false;
+                }
+                LockSupport.parkNanos(this, nanos);
+            }
+            return true;
+        } finally {
+            coarse.drainer = null;
+        }
+    }
+
+    private Coarse retain(Object partition) {
+        if (partitioner == null) {
+            return global;
         }
-        locker.unlock(id);
+        return partitions.compute(partition, (key, coarse) -> {
+            if (coarse == null) {
+                coarse = new Coarse();
+            }
+            coarse.users++;
+            return coarse;
+        });
     }
 
-    private int incrementAndGetCounter() {
-        Integer counter = locksCounter.get();
-        if (counter == null) {
-            locksCounter.set(1);
-        } else {
-            locksCounter.set(counter + 1);
+    private void release(Object partition) {
+        if (partitioner != null) {
+            partitions.computeIfPresent(partition, (key, coarse) -> --coarse.users == 0 ? null : coarse);
         }
-        return locksCounter.get();
     }
 
-    private int decrementAndGetCounter() {
-        Integer counter = locksCounter.get();
-        locksCounter.set(counter - 1);
-        return locksCounter.get();
+    private static final class Coarse {
+        private final Semaphore exclusive = new Semaphore(1);
+        private final AtomicInteger shared = new AtomicInteger();
+        private volatile State<?> escalator;
+        private volatile Thread drainer;
+        private int users;
+    }
+
+    private static final class State<ID> {
+        private final Map<Object, Held<ID>> held = new HashMap<>();
+        private int fineLocks;
+        private int escalated;
+        private volatile boolean blocked;
+    }
+
+    private static final class Held<ID> {
+        private final Coarse coarse;
+        private final Map<ID, int[]> holds = new HashMap<>();
+        private int count;
+        private int nextEscalation;
+        private boolean escalated;
+
+        private Held(Coarse coarse) {
+            this.coarse = coarse;
+        }
+
+        private void add(ID id) {
+            holds.computeIfAbsent(id, key -> new int[1])[0]++;
+            count++;
+        }
+
+        private boolean remove(ID id) {
+            int[] hold = holds.get(id);
+            if (hold == null) {
+                return false;
+            }
+            if (--hold[0] == 0) {
+                holds.remove(id);
+            }
+            count--;
+            return true;
+        }
     }
 }
@@ -0,0 +1,48 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class EscalationLongEntityLocker implements LongEntityLocker {
+    private final int threshold;
+    private final LongEntityLocker locker;
+    private final ReentrantLock escalatedLock = new ReentrantLock();
+    private final ThreadLocal<int[]> locksCounter = ThreadLocal.withInitial(() -> new int[1]);
+
+    public EscalationLongEntityLocker(LongEntityLocker locker, int threshold) {
+        this.locker = locker;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void lock(long id) {
+        locker.lock(id);
+        int counter = ++locksCounter.get()[0];
+        if (counter > threshold) {
+            escalatedLock.lock();
+        }
+    }
+
+    @Override
+    public boolean tryLock(long id, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!locker.tryLock(id, timeout, unit)) {
+            return false;
+        }
+        int[] counter = locksCounter.get();
+        if (++counter[0] > threshold && !escalatedLock.tryLock(timeout, unit)) {
+            counter[0]--;
+            locker.unlock(id);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock(long id) {
+        int counter = --locksCounter.get()[0];
+        if (counter >= threshold) {
+            escalatedLock.unlock();
+        }
+        locker.unlock(id);
+    }
+}
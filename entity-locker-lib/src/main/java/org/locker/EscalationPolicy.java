@@ -0,0 +1,54 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public interface EscalationPolicy {
+
+    long DEFAULT_ESCALATION_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static EscalationPolicy fixed(int threshold) {
+        return fixed(threshold, DEFAULT_ESCALATION_WAIT_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    static EscalationPolicy fixed(int threshold, long escalationWait, TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+        }
+        if (escalationWait < 0) {
+            throw new IllegalArgumentException("Escalation wait must not be negative: " + escalationWait);
+        }
+        long escalationWaitNanos = unit.toNanos(escalationWait);
+        return new EscalationPolicy() {
+            @Override
+            public int getThreshold() {
+                return threshold;
+            }
+
+            @Override
+            public long getEscalationWaitNanos() {
+                return escalationWaitNanos;
+            }
+        };
+    }
+
+    int getThreshold();
+
+    /**
+     * How long an escalating owner waits for the coarse lock and for other owners to leave the partition.
+     * Every owner entering the partition stalls for up to this long while the escalation is attempted.
+     * Without a partitioner the whole locker is one partition, so escalation then succeeds only if no
+     * other owner holds any lock within this window.
+     */
+    default long getEscalationWaitNanos() {
+        return DEFAULT_ESCALATION_WAIT_NANOS;
+    }
+
+    default void onEscalation(long waitNanos) {
+    }
+
+    default void onFailedEscalation(long waitNanos) {
+    }
+
+    default void onLockTableSize(long size) {
+    }
+}
@@ -0,0 +1,142 @@
+package org.locker;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class EscalationReadWriteEntityLocker<ID> implements ReadWriteEntityLocker<ID> {
+    private final int threshold;
+    private final ReadWriteEntityLocker<ID> locker;
+    private final ReentrantLock escalatedLock = new ReentrantLock();
+    private final ThreadLocal<Integer> locksCounter = new ThreadLocal<>();
+
+    public EscalationReadWriteEntityLocker(ReadWriteEntityLocker<ID> locker, int threshold) {
+        this.locker = locker;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void lock(ID id) {
+        locker.lock(id);
+        escalateIfNeeded();
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!locker.tryLock(id, timeout, unit)) {
+            return false;
+        }
+        if (tryEscalateIfNeeded(timeout, unit)) {
+            return true;
+        }
+        locker.unlock(id);
+        return false;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        deescalateIfNeeded();
+        locker.unlock(id);
+    }
+
+    @Override
+    public void lockShared(ID id) {
+        locker.lockShared(id);
+        escalateIfNeeded();
+    }
+
+    @Override
+    public boolean tryLockShared(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!locker.tryLockShared(id, timeout, unit)) {
+            return false;
+        }
+        if (tryEscalateIfNeeded(timeout, unit)) {
+            return true;
+        }
+        locker.unlockShared(id);
+        return false;
+    }
+
+    @Override
+    public void unlockShared(ID id) {
+        deescalateIfNeeded();
+        locker.unlockShared(id);
+    }
+
+    @Override
+    public void lockAll(Collection<ID> ids) {
+        List<ID> orderedIds = LockOrdering.sort(ids);
+        if (getCounter() + orderedIds.size() <= threshold) {
+            LockOrdering.lockAll(this, orderedIds);
+            return;
+        }
+        escalatedLock.lock();
+        try {
+            LockOrdering.lockAll(this, orderedIds);
+        } finally {
+            escalatedLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryLockAll(Collection<ID> ids, long timeout, TimeUnit unit) throws InterruptedException {
+        List<ID> orderedIds = LockOrdering.sort(ids);
+        if (getCounter() + orderedIds.size() <= threshold) {
+            return LockOrdering.tryLockAll(this, orderedIds, timeout, unit);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!escalatedLock.tryLock(timeout, unit)) {
+            return false;
+        }
+        try {
+            return LockOrdering.tryLockAll(this, orderedIds, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            escalatedLock.unlock();
+        }
+    }
+
+    private void escalateIfNeeded() {
+        int counter = incrementAndGetCounter();
+        if (counter > threshold) {
+            escalatedLock.lock();
+        }
+    }
+
+    private boolean tryEscalateIfNeeded(long timeout, TimeUnit unit) throws InterruptedException {
+        int counter = incrementAndGetCounter();
+        if (counter > threshold && !escalatedLock.tryLock(timeout, unit)) {
+            decrementAndGetCounter();
+            return false;
+        }
+        return true;
+    }
+
+    private void deescalateIfNeeded() {
+        int counter = decrementAndGetCounter();
+        if (counter >= threshold) {
+            escalatedLock.unlock();
+        }
+    }
+
+    private int getCounter() {
+        Integer counter = locksCounter.get();
+        return counter == null ? 0 : counter;
+    }
+
+    private int incrementAndGetCounter() {
+        Integer counter = locksCounter.get();
+        if (counter == null) {
+            locksCounter.set(1);
+        } else {
+            locksCounter.set(counter + 1);
+        }
+        return locksCounter.get();
+    }
+
+    private int decrementAndGetCounter() {
+        Integer counter = locksCounter.get();
+        locksCounter.set(counter - 1);
+        return locksCounter.get();
+    }
+}
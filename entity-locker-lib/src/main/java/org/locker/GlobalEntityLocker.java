@@ -1,100 +1,171 @@
 package org.locker;
 
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
 
 public final class GlobalEntityLocker<ID> {
     private final EntityLocker<ID> locker;
-    private final ReentrantLock globalLock = new ReentrantLock();
-    private final AtomicInteger entityLocksCounter = new AtomicInteger();
+    private final Gate gate = new Gate();
 
     public GlobalEntityLocker(EntityLocker<ID> locker) {
         this.locker = locker;
     }
 
     public void lock(ID id) throws InterruptedException {
-        awaitGlobalLock();
-        locker.lock(id);
-        entityLocksCounter.incrementAndGet();
+        gate.acquireSharedInterruptibly(1);
+        try {
+            locker.lock(id);
+        } catch (Throwable e) {
+            gate.releaseShared(1);
+            throw e;
+        }
     }
 
     public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
-        if (awaitGlobalLock(timeout, unit)) {
-            boolean result = locker.tryLock(id, timeout, unit);
-            if (result) {
-                entityLocksCounter.incrementAndGet();
-            }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!gate.tryAcquireSharedNanos(1, unit.toNanos(timeout))) {
+            return false;
+        }
+        boolean result = false;
+        try {
+            result = locker.tryLock(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
             return result;
+        } finally {
+            if (!result) {
+                gate.releaseShared(1);
+            }
         }
-        return false;
     }
 
     public void unlock(ID id) {
         locker.unlock(id);
-        entityLocksCounter.decrementAndGet();
+        gate.releaseShared(1);
+    }
+
+    public LockHandle acquire(ID id) throws InterruptedException {
+        gate.acquireSharedInterruptibly(1);
+        LockHandle handle;
+        try {
+            handle = locker.acquire(id);
+        } catch (Throwable e) {
+            gate.releaseShared(1);
+            throw e;
+        }
+        return () -> {
+            handle.unlock();
+            gate.releaseShared(1);
+        };
+    }
+
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!gate.tryAcquireSharedNanos(1, unit.toNanos(timeout))) {
+            return null;
+        }
+        LockHandle handle = null;
+        try {
+            handle = locker.tryAcquire(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            if (handle == null) {
+                gate.releaseShared(1);
+            }
+        }
+        if (handle == null) {
+            return null;
+        }
+        LockHandle acquired = handle;
+        return () -> {
+            acquired.unlock();
+            gate.releaseShared(1);
+        };
     }
 
     public void lock() throws InterruptedException {
-        awaitEntityLock();
-        globalLock.lock();
+        gate.acquireInterruptibly(1);
     }
 
     public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
-        if (awaitEntityLock(timeout, unit)) {
-            return globalLock.tryLock(timeout, unit);
-        }
-        return false;
+        return gate.tryAcquireNanos(1, unit.toNanos(timeout));
     }
 
     public void unlock() {
-        globalLock.unlock();
-        synchronized (globalLock) {
-            globalLock.notifyAll();
-        }
+        gate.release(1);
     }
 
-    private void awaitGlobalLock() throws InterruptedException {
-        synchronized (globalLock) {
-            while (globalLock.isLocked()) {
-                globalLock.wait();
+    boolean isGloballyLocked() {
+        return gate.isGloballyLocked();
+    }
+
+    private static final class Gate extends AbstractQueuedLongSynchronizer {
+        private static final long serialVersionUID = 1L;
+        private static final long GLOBAL = 1L << 62;
+        private int globalHolds;
+
+        @Override
+        protected long tryAcquireShared(long ignored) {
+            while (true) {
+                long state = getState();
+                if ((state & GLOBAL) != 0 && getExclusiveOwnerThread() != Thread.currentThread()) {
+                    return -1;
+                }
+                if (compareAndSetState(state, state + 1)) {
+                    return 1;
+                }
             }
         }
-    }
 
-    private boolean awaitGlobalLock(long timeout, TimeUnit unit) throws InterruptedException {
-        synchronized (globalLock) {
-            long startTime = System.currentTimeMillis();
-            while (globalLock.isLocked()) {
-                unit.timedWait(globalLock, timeout);
-                long currentTime = System.currentTimeMillis();
-                if ((currentTime - startTime) >= unit.toMillis(timeout)) {
-                    return false;
+        @Override
+        protected boolean tryReleaseShared(long ignored) {
+            while (true) {
+                long state = getState();
+                if ((state & ~GLOBAL) == 0) {
+                    throw new IllegalMonitorStateException("No entity lock is held");
+                }
+                if (compareAndSetState(state, state - 1)) {
+                    return state - 1 == 0;
                 }
             }
         }
-        return true;
-    }
 
-    private void awaitEntityLock() throws InterruptedException {
-        synchronized (globalLock) {
-            while (entityLocksCounter.get() != 0 && !globalLock.isHeldByCurrentThread()) {
-                globalLock.wait();
+        @Override
+        protected boolean tryAcquire(long ignored) {
+            Thread current = Thread.currentThread();
+            if (getExclusiveOwnerThread() == current) {
+                globalHolds++;
+                return true;
+            }
+            if (getState() == 0 && compareAndSetState(0, GLOBAL)) {
+                setExclusiveOwnerThread(current);
+                globalHolds = 1;
+                return true;
             }
+            return false;
         }
-    }
 
-    private boolean awaitEntityLock(long timeout, TimeUnit unit) throws InterruptedException {
-        synchronized (globalLock) {
-            long startTime = System.currentTimeMillis();
-            while (entityLocksCounter.get() != 0 && !globalLock.isHeldByCurrentThread()) {
-                unit.timedWait(globalLock, timeout);
-                long currentTime = System.currentTimeMillis();
-                if ((currentTime - startTime) >= unit.toMillis(timeout)) {
-                    return false;
+        @Override
+        protected boolean tryRelease(long ignored) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException("Global lock is not held by the current thread");
+            }
+            if (--globalHolds > 0) {
+                return false;
+            }
+            setExclusiveOwnerThread(null);
+            while (true) {
+                long state = getState();
+                if (compareAndSetState(state, state & ~GLOBAL)) {
+                    return true;
                 }
             }
         }
-        return true;
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        private boolean isGloballyLocked() {
+            return (getState() & GLOBAL) != 0;
+        }
     }
 }
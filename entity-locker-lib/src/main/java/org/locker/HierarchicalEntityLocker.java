@@ -0,0 +1,421 @@
+package org.locker;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+public final class HierarchicalEntityLocker<ID, P> implements EntityLocker<ID> {
+    private static final LockMode[] MODES = LockMode.values();
+    private final EntityLocker<ID> locker;
+    private final Function<ID, P> partitioner;
+    private final RootLock root = new RootLock();
+    private final Map<P, ModeLock> partitions = new ConcurrentHashMap<>();
+
+    public HierarchicalEntityLocker(EntityLocker<ID> locker, Function<ID, P> partitioner) {
+        this.locker = locker;
+        this.partitioner = partitioner;
+    }
+
+    @Override
+    public void lock(ID id) {
+        P partition = partitioner.apply(id);
+        try {
+            lockPartition(partition, LockMode.INTENTION_EXCLUSIVE, false, 0);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            locker.lock(id);
+        } catch (Throwable e) {
+            unlockPartition(partition, LockMode.INTENTION_EXCLUSIVE);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        P partition = partitioner.apply(id);
+        if (!lockPartition(partition, LockMode.INTENTION_EXCLUSIVE, true, deadline)) {
+            return false;
+        }
+        boolean result = false;
+        try {
+            result = locker.tryLock(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return result;
+        } finally {
+            if (!result) {
+                unlockPartition(partition, LockMode.INTENTION_EXCLUSIVE);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(ID id) {
+        locker.unlock(id);
+        unlockPartition(partitioner.apply(id), LockMode.INTENTION_EXCLUSIVE);
+    }
+
+    public void lockPartition(P partition, LockMode mode) throws InterruptedException {
+        lockPartition(partition, mode, false, 0);
+    }
+
+    public boolean tryLockPartition(P partition, LockMode mode, long timeout, TimeUnit unit) throws InterruptedException {
+        return lockPartition(partition, mode, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public void unlockPartition(P partition, LockMode mode) {
+        ModeLock lock = partitions.get(partition);
+        if (lock == null) {
+            throw new IllegalMonitorStateException("Partition " + partition + " is not locked");
+        }
+        lock.release(mode);
+        releasePartition(partition);
+        root.release(mode.intention());
+    }
+
+    public void lock(LockMode mode) throws InterruptedException {
+        root.acquire(mode, false, 0);
+    }
+
+    public boolean tryLock(LockMode mode, long timeout, TimeUnit unit) throws InterruptedException {
+        return root.acquire(mode, true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public void unlock(LockMode mode) {
+        root.release(mode);
+    }
+
+    int getPartitionsNumber() {
+        return partitions.size();
+    }
+
+    int getWaitersNumber(P partition) {
+        ModeLock lock = partitions.get(partition);
+        return lock == null ? 0 : lock.getWaitersNumber();
+    }
+
+    private boolean lockPartition(P partition, LockMode mode, boolean timed, long deadline) throws InterruptedException {
+        LockMode intention = mode.intention();
+        if (!root.acquire(intention, timed, deadline)) {
+            return false;
+        }
+        boolean result = false;
+        try {
+            ModeLock lock = retainPartition(partition);
+            try {
+                result = lock.acquire(mode, timed, deadline);
+            } finally {
+                if (!result) {
+                    releasePartition(partition);
+                }
+            }
+            return result;
+        } finally {
+            if (!result) {
+                root.release(intention);
+            }
+        }
+    }
+
+    private ModeLock retainPartition(P partition) {
+        return partitions.compute(partition, (key, lock) -> {
+            if (lock == null) {
+                lock = new ModeLock();
+            }
+            lock.users++;
+            return lock;
+        });
+    }
+
+    private void releasePartition(P partition) {
+        partitions.computeIfPresent(partition, (key, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    private static final class RootLock {
+        private static final int STRIDE = 8;
+        private final ModeLock lock = new ModeLock();
+        private final Condition drained = lock.lock.newCondition();
+        private final AtomicInteger revocations = new AtomicInteger();
+        private final AtomicLongArray intentions;
+        private final int mask;
+        private final ThreadLocal<int[]> ownIntentions;
+
+        private RootLock() {
+            int stripes = Runtime.getRuntime().availableProcessors() * 2;
+            int size = Math.max(Integer.highestOneBit(stripes - 1) << 1, 1);
+            this.mask = size - 1;
+            this.intentions = new AtomicLongArray(size * STRIDE);
+            this.ownIntentions = ThreadLocal.withInitial(() -> new int[]{0, 0, offsetOf(Thread.currentThread())});
+        }
+
+        private boolean acquire(LockMode mode, boolean timed, long deadline) throws InterruptedException {
+            if (mode.intention() == mode) {
+                return tryAcquireIntention(mode, ownIntentions.get()) || lock.acquire(mode, timed, deadline);
+            }
+            revocations.incrementAndGet();
+            boolean result = false;
+            try {
+                if (!lock.acquire(mode, timed, deadline)) {
+                    return false;
+                }
+                try {
+                    result = awaitDrained(mode, ownIntentions.get(), timed, deadline);
+                } finally {
+                    if (!result) {
+                        lock.release(mode);
+                    }
+                }
+                return result;
+            } finally {
+                if (!result) {
+                    revocations.decrementAndGet();
+                }
+            }
+        }
+
+        private void release(LockMode mode) {
+            if (mode.intention() != mode) {
+                lock.release(mode);
+                revocations.decrementAndGet();
+                return;
+            }
+            int[] own = ownIntentions.get();
+            if (own[mode.ordinal()] == 0) {
+                lock.release(mode);
+                return;
+            }
+            own[mode.ordinal()]--;
+            intentions.decrementAndGet(own[2] + mode.ordinal());
+            if (revocations.get() > 0) {
+                signalDrained();
+            }
+        }
+
+        private boolean tryAcquireIntention(LockMode mode, int[] own) {
+            boolean reentrant = own[0] + own[1] > 0;
+            if (!reentrant && revocations.get() > 0) {
+                return false;
+            }
+            intentions.incrementAndGet(own[2] + mode.ordinal());
+            if (!reentrant && revocations.get() > 0) {
+                intentions.decrementAndGet(own[2] + mode.ordinal());
+                signalDrained();
+                return false;
+            }
+            own[mode.ordinal()]++;
+            return true;
+        }
+
+        private boolean awaitDrained(LockMode mode, int[] own, boolean timed, long deadline) throws InterruptedException {
+            lock.lock.lockInterruptibly();
+            try {
+                while (countConflictingIntentions(mode, own) > 0) {
+                    if (!timed) {
+                        drained.await();
+                        continue;
+                    }
+                    long nanos = deadline - System.nanoTime();
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    drained.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                lock.lock.unlock();
+            }
+        }
+
+        private long countConflictingIntentions(LockMode mode, int[] own) {
+            long count = 0;
+            for (int intention = 0; intention < 2; intention++) {
+                if (mode.isCompatibleWith(MODES[intention])) {
+                    continue;
+                }
+                count -= own[intention];
+                for (int stripe = 0; stripe <= mask; stripe++) {
+                    count += intentions.get(stripe * STRIDE + intention);
+                }
+            }
+            return count;
+        }
+
+        private void signalDrained() {
+            lock.lock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                lock.lock.unlock();
+            }
+        }
+
+        private int offsetOf(Thread thread) {
+            long id = thread.getId() * 0x9E3779B97F4A7C15L;
+            return ((int) (id >>> 32) & mask) * STRIDE;
+        }
+    }
+
+    private static final class ModeLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int[] granted = new int[MODES.length];
+        private final Map<Thread, int[]> owners = new HashMap<>();
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int users;
+
+        private boolean acquire(LockMode mode, boolean timed, long deadline) throws InterruptedException {
+            Thread thread = Thread.currentThread();
+            lock.lockInterruptibly();
+            try {
+                int[] held = owners.get(thread);
+                if (isGrantable(mode, held, held != null || isCompatibleWithWaiters(mode))) {
+                    grant(thread, mode);
+                    return true;
+                }
+                Waiter waiter = new Waiter(thread, mode, held != null, lock.newCondition());
+                waiters.addLast(waiter);
+                try {
+                    while (!waiter.granted) {
+                        if (!timed) {
+                            waiter.condition.await();
+                            continue;
+                        }
+                        long nanos = deadline - System.nanoTime();
+                        if (nanos <= 0) {
+                            return false;
+                        }
+                        waiter.condition.awaitNanos(nanos);
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        thread.interrupt();
+                        return true;
+                    }
+                    throw e;
+                } finally {
+                    if (!waiter.granted) {
+                        waiters.remove(waiter);
+                        dispatch();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(LockMode mode) {
+            Thread thread = Thread.currentThread();
+            lock.lock();
+            try {
+                int[] held = owners.get(thread);
+                if (held == null || held[mode.ordinal()] == 0) {
+                    throw new IllegalMonitorStateException(mode + " lock is not held by the current thread");
+                }
+                held[mode.ordinal()]--;
+                granted[mode.ordinal()]--;
+                if (isEmpty(held)) {
+                    owners.remove(thread);
+                }
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int getWaitersNumber() {
+            lock.lock();
+            try {
+                return waiters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void dispatch() {
+            boolean[] blocked = new boolean[MODES.length];
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                boolean queueAllows = waiter.reentrant || isCompatible(waiter.mode, blocked);
+                if (isGrantable(waiter.mode, owners.get(waiter.thread), queueAllows)) {
+                    iterator.remove();
+                    grant(waiter.thread, waiter.mode);
+                    waiter.granted = true;
+                    waiter.condition.signal();
+                } else {
+                    blocked[waiter.mode.ordinal()] = true;
+                }
+            }
+        }
+
+        private boolean isGrantable(LockMode mode, int[] held, boolean queueAllows) {
+            if (!queueAllows) {
+                return false;
+            }
+            for (LockMode other : MODES) {
+                int others = granted[other.ordinal()] - (held == null ? 0 : held[other.ordinal()]);
+                if (others > 0 && !mode.isCompatibleWith(other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isCompatibleWithWaiters(LockMode mode) {
+            for (Waiter waiter : waiters) {
+                if (!mode.isCompatibleWith(waiter.mode)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isCompatible(LockMode mode, boolean[] modes) {
+            for (LockMode other : MODES) {
+                if (modes[other.ordinal()] && !mode.isCompatibleWith(other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void grant(Thread thread, LockMode mode) {
+            granted[mode.ordinal()]++;
+            owners.computeIfAbsent(thread, key -> new int[MODES.length])[mode.ordinal()]++;
+        }
+
+        private static boolean isEmpty(int[] held) {
+            for (int count : held) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Waiter {
+        private final Thread thread;
+        private final LockMode mode;
+        private final boolean reentrant;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Thread thread, LockMode mode, boolean reentrant, Condition condition) {
+            this.thread = thread;
+            this.mode = mode;
+            this.reentrant = reentrant;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.locker;
+
+import java.util.Arrays;
+
+final class HoldTimes {
+    static final long NOT_HELD = Long.MIN_VALUE;
+    private Object[] ids = new Object[8];
+    private long[] times = new long[8];
+    private int size;
+
+    void push(Object id, long time) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        ids[size] = id;
+        times[size] = time;
+        size++;
+    }
+
+    long pop(Object id) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] == id || ids[i].equals(id)) {
+                long time = times[i];
+                size--;
+                System.arraycopy(ids, i + 1, ids, i, size - i);
+                System.arraycopy(times, i + 1, times, i, size - i);
+                ids[size] = null;
+                return time;
+            }
+        }
+        return NOT_HELD;
+    }
+}
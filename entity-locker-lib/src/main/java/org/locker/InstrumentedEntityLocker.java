@@ -0,0 +1,113 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public final class InstrumentedEntityLocker<ID> implements EntityLocker<ID> {
+    private final EntityLocker<ID> locker;
+    private final LockMetrics metrics;
+    private final ThreadLocal<HoldTimes> holdTimes = ThreadLocal.withInitial(HoldTimes::new);
+
+    public InstrumentedEntityLocker(EntityLocker<ID> locker) {
+        this(locker, new LockMetrics());
+    }
+
+    public InstrumentedEntityLocker(EntityLocker<ID> locker, LockMetrics metrics) {
+        this.locker = locker;
+        this.metrics = metrics;
+    }
+
+    public InstrumentedEntityLocker(EscalationEntityLocker<ID> locker) {
+        this(locker, new LockMetrics());
+    }
+
+    public InstrumentedEntityLocker(EscalationEntityLocker<ID> locker, LockMetrics metrics) {
+        this((EntityLocker<ID>) locker, metrics);
+        metrics.countEscalations(locker::getEscalations);
+    }
+
+    public LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void lock(ID id) {
+        long start = System.nanoTime();
+        try {
+            locker.lock(id);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquisition(acquired - start);
+        holdTimes.get().push(id, acquired);
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean result;
+        try {
+            result = locker.tryLock(id, timeout, unit);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        if (!result) {
+            metrics.recordTimeout();
+            return false;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquisition(acquired - start);
+        holdTimes.get().push(id, acquired);
+        return true;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        long acquired = holdTimes.get().pop(id);
+        locker.unlock(id);
+        if (acquired != HoldTimes.NOT_HELD) {
+            metrics.recordHold(System.nanoTime() - acquired);
+        }
+    }
+
+    @Override
+    public LockHandle acquire(ID id) {
+        long start = System.nanoTime();
+        LockHandle handle;
+        try {
+            handle = locker.acquire(id);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquisition(acquired - start);
+        return () -> release(handle, acquired);
+    }
+
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        LockHandle handle;
+        try {
+            handle = locker.tryAcquire(id, timeout, unit);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        if (handle == null) {
+            metrics.recordTimeout();
+            return null;
+        }
+        long acquired = System.nanoTime();
+        metrics.recordAcquisition(acquired - start);
+        return () -> release(handle, acquired);
+    }
+
+    private void release(LockHandle handle, long acquired) {
+        handle.unlock();
+        metrics.recordHold(System.nanoTime() - acquired);
+    }
+}
@@ -0,0 +1,97 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public final class InstrumentedGlobalEntityLocker<ID> {
+    private final GlobalEntityLocker<ID> locker;
+    private final LockMetrics metrics;
+    private final ThreadLocal<HoldTimes> holdTimes = ThreadLocal.withInitial(HoldTimes::new);
+
+    public InstrumentedGlobalEntityLocker(GlobalEntityLocker<ID> locker) {
+        this(locker, new LockMetrics());
+    }
+
+    public InstrumentedGlobalEntityLocker(GlobalEntityLocker<ID> locker, LockMetrics metrics) {
+        this.locker = locker;
+        this.metrics = metrics;
+    }
+
+    public LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void lock(ID id) throws InterruptedException {
+        long start = beforeEntityLock();
+        try {
+            locker.lock(id);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        holdTimes.get().push(id, afterLock(start));
+    }
+
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = beforeEntityLock();
+        boolean result;
+        try {
+            result = locker.tryLock(id, timeout, unit);
+        } catch (DeadlockDetectedException e) {
+            metrics.recordDeadlock();
+            throw e;
+        }
+        if (!result) {
+            metrics.recordTimeout();
+            return false;
+        }
+        holdTimes.get().push(id, afterLock(start));
+        return true;
+    }
+
+    public void unlock(ID id) {
+        long acquired = holdTimes.get().pop(id);
+        locker.unlock(id);
+        if (acquired != HoldTimes.NOT_HELD) {
+            metrics.recordHold(System.nanoTime() - acquired);
+        }
+    }
+
+    public void lock() throws InterruptedException {
+        long start = System.nanoTime();
+        locker.lock();
+        metrics.recordGlobalLock();
+        holdTimes.get().push(this, afterLock(start));
+    }
+
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!locker.tryLock(timeout, unit)) {
+            metrics.recordTimeout();
+            return false;
+        }
+        metrics.recordGlobalLock();
+        holdTimes.get().push(this, afterLock(start));
+        return true;
+    }
+
+    public void unlock() {
+        long acquired = holdTimes.get().pop(this);
+        locker.unlock();
+        if (acquired != HoldTimes.NOT_HELD) {
+            metrics.recordHold(System.nanoTime() - acquired);
+        }
+    }
+
+    private long beforeEntityLock() {
+        if (locker.isGloballyLocked()) {
+            metrics.recordGloballyBlockedLock();
+        }
+        return System.nanoTime();
+    }
+
+    private long afterLock(long start) {
+        long acquired = System.nanoTime();
+        metrics.recordAcquisition(acquired - start);
+        return acquired;
+    }
+}
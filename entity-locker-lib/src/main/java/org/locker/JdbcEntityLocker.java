@@ -0,0 +1,479 @@
+package org.locker;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public final class JdbcEntityLocker<ID> implements EntityLocker<ID>, AutoCloseable {
+    private static final long DEFAULT_POLL_MILLIS = 10;
+    private static final int MAX_LOCAL_HANDOFFS = 32;
+    private static final int NONE = 0;
+    private static final int PENDING = 1;
+    private static final int HELD = 2;
+    private static final int LOST = 3;
+    private final DataSource dataSource;
+    private final String table;
+    private final Function<? super ID, String> keyMapper;
+    private final String owner = UUID.randomUUID().toString();
+    private final long leaseMillis;
+    private final String expiresAt;
+    private final long pollNanos;
+    private final Map<ID, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> acquisitions = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> releases = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> yields = new ConcurrentLinkedQueue<>();
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Map<String, Entry> owned = new HashMap<>();
+    private final Map<String, Long> yielding = new HashMap<>();
+    private final List<Entry> waiting = new ArrayList<>();
+    private final List<Entry> releasing = new ArrayList<>();
+    private final Thread worker;
+    private long nextRenewal;
+    private boolean failing;
+    private volatile boolean closed;
+
+    public JdbcEntityLocker(DataSource dataSource, String table, Function<? super ID, String> keyMapper, long lease, TimeUnit unit) {
+        this(dataSource, table, keyMapper, lease, unit, DEFAULT_POLL_MILLIS, MILLISECONDS);
+    }
+
+    public JdbcEntityLocker(DataSource dataSource, String table, Function<? super ID, String> keyMapper, long lease, TimeUnit unit,
+                            long pollInterval, TimeUnit pollUnit) {
+        if (lease <= 0) {
+            throw new IllegalArgumentException("Lease must be positive: " + lease);
+        }
+        if (pollInterval <= 0) {
+            throw new IllegalArgumentException("Poll interval must be positive: " + pollInterval);
+        }
+        this.dataSource = dataSource;
+        this.table = table;
+        this.keyMapper = keyMapper;
+        this.leaseMillis = unit.toMillis(lease);
+        this.expiresAt = String.format("CURRENT_TIMESTAMP + INTERVAL '%d.%03d' SECOND", leaseMillis / 1000, leaseMillis % 1000);
+        this.pollNanos = pollUnit.toNanos(pollInterval);
+        this.worker = new Thread(this::work, "entity-locker-jdbc-" + table);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static <ID extends Serializable> Function<ID, String> serialized() {
+        return id -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return Base64.getEncoder().encodeToString(bytes.toByteArray());
+        };
+    }
+
+    public void createTableIfNotExists() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table
+                    + " (lock_key VARCHAR(1024) NOT NULL PRIMARY KEY, owner VARCHAR(64), expires_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    @Override
+    public void lock(ID id) {
+        Entry entry = retain(id);
+        entry.local.lock();
+        if (entry.local.getHoldCount() == 1) {
+            try {
+                awaitRow(entry);
+            } catch (RuntimeException e) {
+                entry.local.unlock();
+                release(entry);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Entry entry = retain(id);
+        boolean locked = false;
+        try {
+            if (!entry.local.tryLock(timeout, unit)) {
+                return false;
+            }
+            try {
+                locked = entry.local.getHoldCount() > 1 || tryAwaitRow(entry, deadline);
+            } finally {
+                if (!locked) {
+                    entry.local.unlock();
+                }
+            }
+            return locked;
+        } finally {
+            if (!locked) {
+                release(entry);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current thread");
+        }
+        boolean lost = false;
+        if (entry.local.getHoldCount() == 1) {
+            lost = entry.row.compareAndSet(LOST, NONE);
+            if (!lost && entry.handoffs >= MAX_LOCAL_HANDOFFS && entry.row.compareAndSet(HELD, NONE)) {
+                yields.add(entry);
+                LockSupport.unpark(worker);
+            }
+        }
+        entry.local.unlock();
+        release(entry);
+        if (lost) {
+            throw new LeaseExpiredException("Lease of " + id + " expired");
+        }
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitRow(Entry entry) {
+        if (entry.row.get() == HELD) {
+            entry.handoffs++;
+            return;
+        }
+        boolean interrupted = false;
+        request(entry);
+        try {
+            while (entry.row.get() != HELD) {
+                checkClosed(entry);
+                LockSupport.park(this);
+                interrupted |= Thread.interrupted();
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        entry.handoffs = 0;
+    }
+
+    private boolean tryAwaitRow(Entry entry, long deadline) throws InterruptedException {
+        if (entry.row.get() == HELD) {
+            entry.handoffs++;
+            return true;
+        }
+        request(entry);
+        entry.handoffs = 0;
+        while (entry.row.get() != HELD) {
+            checkClosed(entry);
+            boolean interrupted = Thread.interrupted();
+            long nanos = deadline - System.nanoTime();
+            if ((interrupted || nanos <= 0) && entry.row.compareAndSet(PENDING, NONE)) {
+                if (interrupted) {
+                    throw new InterruptedException();
+                }
+                return false;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            LockSupport.parkNanos(this, nanos);
+        }
+        return true;
+    }
+
+    private void checkClosed(Entry entry) {
+        if (closed && entry.row.compareAndSet(PENDING, NONE)) {
+            throw new IllegalStateException("Locker of " + table + " is closed");
+        }
+    }
+
+    private void request(Entry entry) {
+        entry.waiter = Thread.currentThread();
+        entry.row.set(PENDING);
+        acquisitions.add(entry);
+        LockSupport.unpark(worker);
+    }
+
+    private Entry retain(ID id) {
+        return entries.compute(id, (key, entry) -> {
+            if (entry == null) {
+                entry = new Entry(id, keyMapper.apply(id));
+            }
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void release(Entry entry) {
+        entries.computeIfPresent(entry.id, (key, current) -> {
+            if (current != entry || --current.users > 0) {
+                return current;
+            }
+            releases.add(current);
+            return null;
+        });
+        if (!releases.isEmpty()) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void work() {
+        nextRenewal = System.nanoTime() + MILLISECONDS.toNanos(leaseMillis) / 3;
+        while (!closed) {
+            try {
+                round();
+                failing = false;
+            } catch (SQLException | RuntimeException e) {
+                report(e);
+                LockSupport.parkNanos(this, pollNanos);
+            }
+            long nanos = waiting.isEmpty() ? nextRenewal - System.nanoTime() : pollNanos;
+            if (acquisitions.isEmpty() && releases.isEmpty() && yields.isEmpty() && nanos > 0) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        }
+        for (Entry entry; (entry = acquisitions.poll()) != null; ) {
+            waiting.add(entry);
+        }
+        for (Entry entry : waiting) {
+            LockSupport.unpark(entry.waiter);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            releaseRows(connection, new ArrayList<>(owned.keySet()));
+        } catch (SQLException | RuntimeException e) {
+            report(e);
+        }
+    }
+
+    private void report(Exception e) {
+        failures.increment();
+        if (!failing) {
+            failing = true;
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private void round() throws SQLException {
+        for (Entry entry; (entry = acquisitions.poll()) != null; ) {
+            waiting.add(entry);
+        }
+        for (Entry entry; (entry = releases.poll()) != null; ) {
+            releasing.add(entry);
+        }
+        List<String> unused = new ArrayList<>();
+        long now = System.nanoTime();
+        yielding.values().removeIf(until -> until - now <= 0);
+        for (Entry entry; (entry = yields.poll()) != null; ) {
+            if (owned.containsKey(entry.key) && !unused.contains(entry.key)) {
+                unused.add(entry.key);
+            }
+            yielding.put(entry.key, now + 2 * pollNanos);
+        }
+        for (Entry entry : releasing) {
+            if (owned.containsKey(entry.key) && !entries.containsKey(entry.id) && !unused.contains(entry.key)) {
+                unused.add(entry.key);
+            }
+        }
+        List<Entry> claims = new ArrayList<>();
+        List<Entry> deferred = new ArrayList<>();
+        for (Entry entry : waiting) {
+            if (entry.row.get() != PENDING) {
+                continue;
+            }
+            if (owned.containsKey(entry.key) && !unused.contains(entry.key)) {
+                owned.put(entry.key, entry);
+                grant(entry);
+            } else if (yielding.containsKey(entry.key)) {
+                deferred.add(entry);
+            } else {
+                claims.add(entry);
+            }
+        }
+        waiting.clear();
+        waiting.addAll(claims);
+        waiting.addAll(deferred);
+        boolean renewal = System.nanoTime() - nextRenewal >= 0;
+        if (unused.isEmpty() && claims.isEmpty() && !renewal) {
+            releasing.clear();
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            releaseRows(connection, unused);
+            releasing.clear();
+            claimRows(connection, claims);
+            if (renewal) {
+                renewRows(connection);
+                nextRenewal = System.nanoTime() + MILLISECONDS.toNanos(leaseMillis) / 3;
+            }
+        }
+    }
+
+    private void releaseRows(Connection connection, List<String> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE " + table + " SET owner = NULL, expires_at = CURRENT_TIMESTAMP WHERE lock_key = ? AND owner = ?")) {
+            for (String key : keys) {
+                statement.setString(1, key);
+                statement.setString(2, owner);
+                statement.addBatch();
+            }
+            roundTrips.increment();
+            statement.executeBatch();
+        }
+        owned.keySet().removeAll(keys);
+    }
+
+    private void claimRows(Connection connection, List<Entry> claims) throws SQLException {
+        if (claims.isEmpty()) {
+            return;
+        }
+        List<Entry> missing = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE " + table + " SET owner = ?, expires_at = " + expiresAt
+                + " WHERE lock_key = ? AND (owner IS NULL OR owner = ? OR expires_at < CURRENT_TIMESTAMP)")) {
+            for (Entry entry : claims) {
+                statement.setString(1, owner);
+                statement.setString(2, entry.key);
+                statement.setString(3, owner);
+                statement.addBatch();
+            }
+            roundTrips.increment();
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < claims.size(); i++) {
+                if (counts[i] > 0) {
+                    onClaimed(claims.get(i));
+                } else {
+                    missing.add(claims.get(i));
+                }
+            }
+        }
+        insertMissing(connection, missing);
+    }
+
+    private void insertMissing(Connection connection, List<Entry> missing) throws SQLException {
+        if (missing.isEmpty()) {
+            return;
+        }
+        int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + table + " (lock_key, owner, expires_at) VALUES (?, ?, " + expiresAt + ")")) {
+            for (Entry entry : missing) {
+                statement.setString(1, entry.key);
+                statement.setString(2, owner);
+                statement.addBatch();
+            }
+            roundTrips.increment();
+            try {
+                counts = statement.executeBatch();
+            } catch (BatchUpdateException e) {
+                counts = e.getUpdateCounts();
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                onClaimed(missing.get(i));
+            }
+        }
+    }
+
+    private void onClaimed(Entry entry) {
+        owned.put(entry.key, entry);
+        if (!grant(entry)) {
+            releasing.add(entry);
+        }
+    }
+
+    private boolean grant(Entry entry) {
+        if (!entry.row.compareAndSet(PENDING, HELD)) {
+            return false;
+        }
+        LockSupport.unpark(entry.waiter);
+        return true;
+    }
+
+    private void renewRows(Connection connection) throws SQLException {
+        if (owned.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(owned.keySet());
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE " + table + " SET expires_at = " + expiresAt + " WHERE lock_key = ? AND owner = ?")) {
+            for (String key : keys) {
+                statement.setString(1, key);
+                statement.setString(2, owner);
+                statement.addBatch();
+            }
+            roundTrips.increment();
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < keys.size(); i++) {
+                Entry entry = counts[i] == 0 ? owned.remove(keys.get(i)) : null;
+                if (entry != null) {
+                    entry.row.compareAndSet(HELD, LOST);
+                }
+            }
+        }
+    }
+
+    private final class Entry {
+        private final ID id;
+        private final String key;
+        private final ReentrantLock local = new ReentrantLock();
+        private final AtomicInteger row = new AtomicInteger(NONE);
+        private volatile Thread waiter;
+        private int users;
+        private int handoffs;
+
+        private Entry(ID id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package org.locker;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class LeaseEntityLocker<ID> implements EntityLocker<ID>, AutoCloseable {
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final int MAX_WHEEL_SIZE = 1 << 20;
+    private final Map<ID, Entry> entries = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<ID, Lease>> leases = ThreadLocal.withInitial(HashMap::new);
+    private final long defaultLeaseNanos;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout>[] wheel;
+    private final int mask;
+    private final BiConsumer<? super ID, Thread> expirationListener;
+    private final LongAdder expiredLeases = new LongAdder();
+    private final ScheduledExecutorService reaper;
+    private long processedTick;
+
+    public LeaseEntityLocker(long defaultLease, TimeUnit unit) {
+        this(unit.toNanos(defaultLease), MILLISECONDS.toNanos(DEFAULT_TICK_MILLIS), NANOSECONDS, DEFAULT_WHEEL_SIZE, (id, owner) -> {
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public LeaseEntityLocker(long defaultLease, long tick, TimeUnit unit, int wheelSize, BiConsumer<? super ID, Thread> expirationListener) {
+        if (defaultLease <= 0) {
+            throw new IllegalArgumentException("Default lease must be positive: " + defaultLease);
+        }
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        if (wheelSize <= 0 || wheelSize > MAX_WHEEL_SIZE) {
+            throw new IllegalArgumentException("Wheel size must be in range (0, " + MAX_WHEEL_SIZE + "]: " + wheelSize);
+        }
+        int size = Math.max(Integer.highestOneBit(wheelSize - 1) << 1, 1);
+        this.defaultLeaseNanos = unit.toNanos(defaultLease);
+        this.tickNanos = unit.toNanos(tick);
+        this.wheel = (Queue<Timeout>[]) new Queue<?>[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = size - 1;
+        this.expirationListener = expirationListener;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-locker-lease-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleAtFixedRate(this::expireLeases, tickNanos, tickNanos, NANOSECONDS);
+    }
+
+    @Override
+    public void lock(ID id) {
+        lock(id, defaultLeaseNanos, NANOSECONDS);
+    }
+
+    public void lock(ID id, long leaseDuration, TimeUnit unit) {
+        if (lockReentrantly(id)) {
+            return;
+        }
+        Entry entry = retain(id);
+        entry.permit.acquireUninterruptibly();
+        grant(id, entry, unit.toNanos(leaseDuration));
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryLock(id, timeout, unit, defaultLeaseNanos, NANOSECONDS);
+    }
+
+    public boolean tryLock(ID id, long timeout, TimeUnit unit, long leaseDuration, TimeUnit leaseUnit) throws InterruptedException {
+        if (lockReentrantly(id)) {
+            return true;
+        }
+        Entry entry = retain(id);
+        boolean acquired = false;
+        try {
+            acquired = entry.permit.tryAcquire(timeout, unit);
+        } finally {
+            if (!acquired) {
+                release(id, entry);
+            }
+        }
+        if (acquired) {
+            grant(id, entry, leaseUnit.toNanos(leaseDuration));
+        }
+        return acquired;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Map<ID, Lease> leases = this.leases.get();
+        Lease lease = leases.get(id);
+        if (lease == null) {
+            throw new IllegalMonitorStateException("Lease of " + id + " is not held by the current thread");
+        }
+        if (lease.state == Lease.ACTIVE && --lease.holds > 0) {
+            return;
+        }
+        leases.remove(id);
+        if (!lease.end(Lease.RELEASED)) {
+            throw new LeaseExpiredException("Lease of " + id + " expired");
+        }
+        release(id, lease.entry);
+        lease.entry.permit.release();
+    }
+
+    public boolean renew(ID id, long leaseDuration, TimeUnit unit) {
+        Lease lease = getOwnLease(id);
+        long expiresAt = System.nanoTime() + unit.toNanos(leaseDuration);
+        lease.expiresAt = expiresAt;
+        if (tickOf(expiresAt) < lease.timeout.tick) {
+            schedule(lease);
+        }
+        return lease.state == Lease.ACTIVE;
+    }
+
+    public long getExpiredLeases() {
+        return expiredLeases.sum();
+    }
+
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+    }
+
+    int getLocksNumber() {
+        return entries.size();
+    }
+
+    private boolean lockReentrantly(ID id) {
+        Lease lease = leases.get().get(id);
+        if (lease != null && lease.state == Lease.ACTIVE) {
+            lease.holds++;
+            return true;
+        }
+        return false;
+    }
+
+    private Lease getOwnLease(ID id) {
+        Lease lease = leases.get().get(id);
+        if (lease == null) {
+            throw new IllegalMonitorStateException("Lease of " + id + " is not held by the current thread");
+        }
+        if (lease.state != Lease.ACTIVE) {
+            throw new LeaseExpiredException("Lease of " + id + " expired");
+        }
+        return lease;
+    }
+
+    private void grant(ID id, Entry entry, long leaseNanos) {
+        Lease lease = new Lease(id, entry, Thread.currentThread(), System.nanoTime() + leaseNanos);
+        leases.get().put(id, lease);
+        schedule(lease);
+    }
+
+    private Entry retain(ID id) {
+        return entries.compute(id, (key, entry) -> {
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void release(ID id, Entry entry) {
+        entries.computeIfPresent(id, (key, current) -> current == entry && --current.users == 0 ? null : current);
+    }
+
+    private long tickOf(long nanos) {
+        long elapsed = nanos - startNanos;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    private void schedule(Lease lease) {
+        while (true) {
+            Timeout current = lease.timeout;
+            long tick = Math.max(tickOf(lease.expiresAt), (System.nanoTime() - startNanos) / tickNanos + 1);
+            Timeout timeout = new Timeout(lease, tick);
+            if (Lease.TIMEOUT.compareAndSet(lease, current, timeout)) {
+                wheel[(int) (tick & mask)].add(timeout);
+                return;
+            }
+        }
+    }
+
+    private void expireLeases() {
+        long now = System.nanoTime();
+        long currentTick = (now - startNanos) / tickNanos;
+        long lastTick = Math.min(currentTick, processedTick + wheel.length);
+        for (long tick = processedTick + 1; tick <= lastTick; tick++) {
+            expireLeases(wheel[(int) (tick & mask)], currentTick, now);
+        }
+        processedTick = currentTick;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expireLeases(Queue<Timeout> bucket, long currentTick, long now) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            Lease lease = timeout.lease;
+            if (lease.timeout != timeout || lease.state != Lease.ACTIVE) {
+                iterator.remove();
+            } else if (timeout.tick <= currentTick) {
+                iterator.remove();
+                if (lease.expiresAt - now > 0) {
+                    schedule(lease);
+                } else if (lease.end(Lease.EXPIRED)) {
+                    expiredLeases.increment();
+                    try {
+                        expirationListener.accept((ID) lease.id, lease.owner);
+                    } catch (RuntimeException ignored) {
+                    }
+                    release((ID) lease.id, lease.entry);
+                    lease.entry.permit.release();
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Semaphore permit = new Semaphore(1);
+        private int users;
+    }
+
+    private static final class Lease {
+        private static final int ACTIVE = 0;
+        private static final int RELEASED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Lease> STATE = AtomicIntegerFieldUpdater.newUpdater(Lease.class, "state");
+        private static final AtomicReferenceFieldUpdater<Lease, Timeout> TIMEOUT = AtomicReferenceFieldUpdater.newUpdater(Lease.class, Timeout.class, "timeout");
+        private final Object id;
+        private final Entry entry;
+        private final Thread owner;
+        private volatile long expiresAt;
+        private volatile int state;
+        private volatile Timeout timeout;
+        private int holds = 1;
+
+        private Lease(Object id, Entry entry, Thread owner, long expiresAt) {
+            this.id = id;
+            this.entry = entry;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean end(int state) {
+            return STATE.compareAndSet(this, ACTIVE, state);
+        }
+    }
+
+    private static final class Timeout {
+        private final Lease lease;
+        private final long tick;
+
+        private Timeout(Lease lease, long tick) {
+            this.lease = lease;
+            this.tick = tick;
+        }
+    }
+}
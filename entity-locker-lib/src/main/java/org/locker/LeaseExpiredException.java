@@ -0,0 +1,9 @@
+package org.locker;
+
+public class LeaseExpiredException extends IllegalMonitorStateException {
+    private static final long serialVersionUID = 1L;
+
+    public LeaseExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.locker;
+
+public interface LockHandle extends AutoCloseable {
+
+    void unlock();
+
+    @Override
+    default void close() {
+        unlock();
+    }
+}
@@ -0,0 +1,82 @@
+package org.locker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public final class LockMetrics {
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final List<LongSupplier> escalations = new CopyOnWriteArrayList<>();
+    private final LongAdder globalLocks = new LongAdder();
+    private final LongAdder globallyBlockedLocks = new LongAdder();
+
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram getHoldTime() {
+        return holdTime;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getDeadlocks() {
+        return deadlocks.sum();
+    }
+
+    public long getEscalations() {
+        long sum = 0;
+        for (LongSupplier counter : escalations) {
+            sum += counter.getAsLong();
+        }
+        return sum;
+    }
+
+    public long getGlobalLocks() {
+        return globalLocks.sum();
+    }
+
+    public long getGloballyBlockedLocks() {
+        return globallyBlockedLocks.sum();
+    }
+
+    void recordAcquisition(long waitNanos) {
+        acquisitions.increment();
+        waitTime.record(waitNanos);
+    }
+
+    void recordHold(long holdNanos) {
+        holdTime.record(holdNanos);
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    void recordDeadlock() {
+        deadlocks.increment();
+    }
+
+    void countEscalations(LongSupplier counter) {
+        escalations.add(counter);
+    }
+
+    void recordGlobalLock() {
+        globalLocks.increment();
+    }
+
+    void recordGloballyBlockedLock() {
+        globallyBlockedLocks.increment();
+    }
+}
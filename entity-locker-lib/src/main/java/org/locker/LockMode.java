@@ -0,0 +1,25 @@
+package org.locker;
+
+public enum LockMode {
+    INTENTION_SHARED,
+    INTENTION_EXCLUSIVE,
+    SHARED,
+    SHARED_INTENTION_EXCLUSIVE,
+    EXCLUSIVE;
+
+    private static final boolean[][] COMPATIBILITY = {
+            {true, true, true, true, false},
+            {true, true, false, false, false},
+            {true, false, true, false, false},
+            {true, false, false, false, false},
+            {false, false, false, false, false}
+    };
+
+    public boolean isCompatibleWith(LockMode mode) {
+        return COMPATIBILITY[ordinal()][mode.ordinal()];
+    }
+
+    LockMode intention() {
+        return this == INTENTION_SHARED || this == SHARED ? INTENTION_SHARED : INTENTION_EXCLUSIVE;
+    }
+}
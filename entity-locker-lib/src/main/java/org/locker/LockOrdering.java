@@ -0,0 +1,94 @@
+package org.locker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+final class LockOrdering {
+    private static final Comparator<Object> HASH_ORDER = Comparator
+            .comparingInt(Object::hashCode)
+            .thenComparing(id -> id.getClass().getName())
+            .thenComparing(String::valueOf)
+            .thenComparing(LockOrdering::rejectTie);
+
+    private LockOrdering() {
+    }
+
+    static <ID> List<ID> sort(Collection<ID> ids) {
+        List<ID> orderedIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (isComparable(orderedIds)) {
+            try {
+                orderedIds.sort(null);
+                return orderedIds;
+            } catch (ClassCastException e) {
+                // mutually incomparable ids, fall back to hash order
+            }
+        }
+        orderedIds.sort(HASH_ORDER);
+        return orderedIds;
+    }
+
+    static <ID> List<ID> sort(Collection<ID> ids, Comparator<? super ID> comparator) {
+        List<ID> orderedIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        orderedIds.sort(comparator);
+        return orderedIds;
+    }
+
+    static <ID> void lockAll(EntityLocker<ID> locker, List<ID> orderedIds) {
+        int locked = 0;
+        try {
+            for (ID id : orderedIds) {
+                locker.lock(id);
+                locked++;
+            }
+        } catch (RuntimeException | Error e) {
+            unlockAll(locker, orderedIds.subList(0, locked));
+            throw e;
+        }
+    }
+
+    static <ID> boolean tryLockAll(EntityLocker<ID> locker, List<ID> orderedIds, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int locked = 0;
+        try {
+            for (ID id : orderedIds) {
+                if (!locker.tryLock(id, deadline - System.nanoTime(), NANOSECONDS)) {
+                    unlockAll(locker, orderedIds.subList(0, locked));
+                    return false;
+                }
+                locked++;
+            }
+            return true;
+        } catch (InterruptedException | RuntimeException | Error e) {
+            unlockAll(locker, orderedIds.subList(0, locked));
+            throw e;
+        }
+    }
+
+    static <ID> void unlockAll(EntityLocker<ID> locker, List<ID> orderedIds) {
+        for (int i = orderedIds.size() - 1; i >= 0; i--) {
+            locker.unlock(orderedIds.get(i));
+        }
+    }
+
+    private static int rejectTie(Object id, Object other) {
+        if (id.equals(other)) {
+            return 0;
+        }
+        throw new IllegalArgumentException("Ids " + id + " and " + other + " have no total lock order, use Comparable ids or a comparator");
+    }
+
+    private static boolean isComparable(List<?> ids) {
+        for (Object id : ids) {
+            if (!(id instanceof Comparable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
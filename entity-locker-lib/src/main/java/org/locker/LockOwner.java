@@ -0,0 +1,79 @@
+package org.locker;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class LockOwner {
+    private static final ThreadLocal<Slot> SLOTS = ThreadLocal.withInitial(Slot::new);
+    private final AtomicReference<Thread> boundThread = new AtomicReference<>();
+    private Map<Object, Object> attachments;
+    private int bindings;
+
+    LockOwner() {
+    }
+
+    public static LockOwner newOwner() {
+        return new LockOwner();
+    }
+
+    static LockOwner current() {
+        Slot slot = SLOTS.get();
+        LockOwner bound = slot.bound;
+        return bound != null ? bound : slot.owner;
+    }
+
+    public Binding bind() {
+        Thread thread = Thread.currentThread();
+        if (boundThread.get() != thread && !boundThread.compareAndSet(null, thread)) {
+            throw new IllegalStateException("Lock owner is bound to another thread");
+        }
+        bindings++;
+        Slot slot = SLOTS.get();
+        Binding binding = new Binding(slot, slot.bound);
+        slot.bound = this;
+        return binding;
+    }
+
+    Object getAttachment(Object key) {
+        return attachments == null ? null : attachments.get(key);
+    }
+
+    void attach(Object key, Object value) {
+        if (attachments == null) {
+            attachments = new WeakHashMap<>();
+        }
+        attachments.put(key, value);
+    }
+
+    public final class Binding implements AutoCloseable {
+        private final Slot slot;
+        private final LockOwner previous;
+        private boolean closed;
+
+        private Binding(Slot slot, LockOwner previous) {
+            this.slot = slot;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            if (boundThread.get() != Thread.currentThread() || slot.bound != LockOwner.this) {
+                throw new IllegalStateException("Lock owner bindings must be closed in reverse order by the bound thread");
+            }
+            closed = true;
+            slot.bound = previous;
+            if (--bindings == 0) {
+                boundThread.set(null);
+            }
+        }
+    }
+
+    private static final class Slot {
+        private final LockOwner owner = new LockOwner();
+        private LockOwner bound;
+    }
+}
@@ -0,0 +1,360 @@
+package org.locker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class LockServer implements AutoCloseable {
+    static final byte LOCK = 1;
+    static final byte UNLOCK = 2;
+    static final byte OK = 0;
+    static final byte TIMEOUT = 1;
+    static final byte DEADLOCK = 2;
+    static final byte FAILED = 3;
+    static final int HEADER_SIZE = 1 + 4 + 8 + 8;
+    static final int RESPONSE_SIZE = 4 + 1;
+    static final int MAX_FRAME_SIZE = 1 << 16;
+    private static final long WAIT_SLICE_NANOS = MILLISECONDS.toNanos(50);
+    private final EntityLocker<ByteBuffer> locker;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<Session> flushes = new ConcurrentLinkedQueue<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    public LockServer(InetSocketAddress address) throws IOException {
+        this(new NoDeadLockEntityLocker<>(new OwnedEntityLocker<>()), address);
+    }
+
+    public LockServer(EntityLocker<ByteBuffer> locker, InetSocketAddress address) throws IOException {
+        this.locker = locker;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "entity-locker-server-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptor = new Thread(this::serve, "entity-locker-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) server.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+    }
+
+    int getSessionsNumber() {
+        return sessions.size();
+    }
+
+    int getOwnersNumber() {
+        int number = 0;
+        for (Session session : sessions) {
+            number += session.owners.size();
+        }
+        return number;
+    }
+
+    private void serve() {
+        while (!closed) {
+            try {
+                selector.select();
+                for (Session session; (session = flushes.poll()) != null; ) {
+                    session.flush();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Session session = (Session) key.attachment();
+                        if (key.isReadable()) {
+                            session.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            session.flush();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        for (Session session : new ArrayList<>(sessions)) {
+            session.close();
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Session session = new Session(channel);
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        sessions.add(session);
+    }
+
+    private final class Session {
+        private final SocketChannel channel;
+        private final Map<Long, Owner> owners = new ConcurrentHashMap<>();
+        private final ByteBuffer outbox = ByteBuffer.allocate(RESPONSE_SIZE * 256);
+        private final List<ByteBuffer> overflow = new ArrayList<>();
+        private ByteBuffer inbox = ByteBuffer.allocate(4096);
+        private SelectionKey key;
+        private volatile boolean closed;
+
+        private Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() {
+            int read;
+            try {
+                read = channel.read(inbox);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+            inbox.flip();
+            while (inbox.remaining() >= 4) {
+                int length = inbox.getInt(inbox.position());
+                if (length < HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                    close();
+                    return;
+                }
+                if (inbox.remaining() < 4 + length) {
+                    if (inbox.capacity() < 4 + length) {
+                        inbox = ByteBuffer.allocate(4 + length).put(inbox);
+                        return;
+                    }
+                    break;
+                }
+                inbox.getInt();
+                byte op = inbox.get();
+                int requestId = inbox.getInt();
+                long ownerId = inbox.getLong();
+                long timeout = inbox.getLong();
+                byte[] bytes = new byte[length - HEADER_SIZE];
+                inbox.get(bytes);
+                dispatch(op, requestId, ownerId, timeout, ByteBuffer.wrap(bytes));
+                if (closed) {
+                    return;
+                }
+            }
+            inbox.compact();
+        }
+
+        private void dispatch(byte op, int requestId, long ownerId, long timeout, ByteBuffer id) {
+            if (op != LOCK && op != UNLOCK) {
+                close();
+                return;
+            }
+            Owner owner = owners.compute(ownerId, (key, current) -> {
+                Owner target = current == null ? new Owner(key) : current;
+                target.tasks.add(op == LOCK ? () -> respond(requestId, target.lock(id, timeout)) : () -> target.unlock(id));
+                return target;
+            });
+            owner.schedule();
+        }
+
+        private void respond(int requestId, byte status) {
+            synchronized (outbox) {
+                if (outbox.remaining() < RESPONSE_SIZE) {
+                    outbox.flip();
+                    overflow.add(ByteBuffer.allocate(outbox.remaining()).put(outbox).flip());
+                    outbox.clear();
+                }
+                outbox.putInt(requestId).put(status);
+            }
+            flushes.add(this);
+            selector.wakeup();
+        }
+
+        private void flush() {
+            if (closed) {
+                return;
+            }
+            try {
+                synchronized (outbox) {
+                    while (!overflow.isEmpty()) {
+                        ByteBuffer pending = overflow.get(0);
+                        channel.write(pending);
+                        if (pending.hasRemaining()) {
+                            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                            return;
+                        }
+                        overflow.remove(0);
+                    }
+                    outbox.flip();
+                    channel.write(outbox);
+                    boolean drained = !outbox.hasRemaining();
+                    outbox.compact();
+                    key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sessions.remove(this);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            for (Owner owner : owners.values()) {
+                owner.submit(owner::unlockAll);
+            }
+        }
+
+        private final class Owner {
+            private final long ownerId;
+            private final LockOwner owner = LockOwner.newOwner();
+            private final Map<ByteBuffer, int[]> held = new HashMap<>();
+            private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+
+            private Owner(long ownerId) {
+                this.ownerId = ownerId;
+            }
+
+            private void submit(Runnable task) {
+                tasks.add(task);
+                schedule();
+            }
+
+            private void schedule() {
+                if (scheduled.compareAndSet(false, true)) {
+                    workers.execute(this::drain);
+                }
+            }
+
+            @SuppressWarnings("try")
+            private void drain() {
+                do {
+                    try (LockOwner.Binding ignored = owner.bind()) {
+                        for (Runnable task; (task = tasks.poll()) != null; ) {
+                            task.run();
+                        }
+                        owners.computeIfPresent(ownerId, (key, current) -> current == this && held.isEmpty() && tasks.isEmpty() ? null : current);
+                    } finally {
+                        scheduled.set(false);
+                    }
+                } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+            }
+
+            private byte lock(ByteBuffer id, long timeout) {
+                long deadline = System.nanoTime() + timeout;
+                try {
+                    while (!closed) {
+                        long nanos = timeout < 0 ? WAIT_SLICE_NANOS : Math.min(deadline - System.nanoTime(), WAIT_SLICE_NANOS);
+                        if (locker.tryLock(id, Math.max(nanos, 0), NANOSECONDS)) {
+                            if (closed) {
+                                locker.unlock(id);
+                                break;
+                            }
+                            held.computeIfAbsent(id, key -> new int[1])[0]++;
+                            return OK;
+                        }
+                        if (timeout >= 0 && deadline - System.nanoTime() <= 0) {
+                            return TIMEOUT;
+                        }
+                    }
+                    return FAILED;
+                } catch (DeadlockDetectedException e) {
+                    return DEADLOCK;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return FAILED;
+                } catch (RuntimeException e) {
+                    return FAILED;
+                }
+            }
+
+            private void unlock(ByteBuffer id) {
+                int[] holds = held.get(id);
+                if (holds == null) {
+                    return;
+                }
+                if (--holds[0] == 0) {
+                    held.remove(id);
+                }
+                locker.unlock(id);
+            }
+
+            private void unlockAll() {
+                for (Map.Entry<ByteBuffer, int[]> entry : held.entrySet()) {
+                    for (int i = 0; i < entry.getValue()[0]; i++) {
+                        locker.unlock(entry.getKey());
+                    }
+                }
+                held.clear();
+            }
+        }
+    }
+}
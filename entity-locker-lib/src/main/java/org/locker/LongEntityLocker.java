@@ -0,0 +1,12 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public interface LongEntityLocker {
+
+    void lock(long id);
+
+    boolean tryLock(long id, long timeout, TimeUnit unit) throws InterruptedException;
+
+    void unlock(long id);
+}
@@ -0,0 +1,385 @@
+package org.locker;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public final class MappedEntityLocker<ID> implements EntityLocker<ID>, AutoCloseable {
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long LAYOUT_MAGIC = 0x4C4F434CL << 32;
+    private static final int DEFAULT_BUCKETS_NUMBER = 4096;
+    private static final long DEFAULT_LEASE_SECONDS = 10;
+    private static final int MAX_BUCKETS_NUMBER = 1 << 24;
+    private static final int MAX_PROCESSES = 1024;
+    private static final int HEADER_SIZE = 64;
+    private static final int PROCESS_SIZE = 16;
+    private static final int BUCKET_SIZE = 128;
+    private static final int BUCKET_HEADER_SIZE = 2 * Long.BYTES;
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int BUCKET_SLOTS = (BUCKET_SIZE - BUCKET_HEADER_SIZE) / SLOT_SIZE;
+    private static final int MAX_PROBES = 8;
+    private static final int GUARD_SPINS = 64;
+    private static final long MAX_BACK_OFF_NANOS = MILLISECONDS.toNanos(1);
+    private static final int NOT_FOUND = -1;
+    private static final int HELD = -2;
+    private static final int BUSY = -3;
+    private final MappedByteBuffer table;
+    private final ToLongFunction<? super ID> fingerprint;
+    private final int mask;
+    private final long bucketsOffset;
+    private final long leaseMillis;
+    private final long processOffset;
+    private final int owner;
+    private final int probes;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewal;
+    private volatile boolean closed;
+
+    public MappedEntityLocker(Path file, ToLongFunction<? super ID> fingerprint) throws IOException {
+        this(file, DEFAULT_BUCKETS_NUMBER, fingerprint, DEFAULT_LEASE_SECONDS, SECONDS);
+    }
+
+    public MappedEntityLocker(Path file, int bucketsNumber, ToLongFunction<? super ID> fingerprint, long lease, TimeUnit unit) throws IOException {
+        if (bucketsNumber <= 0 || bucketsNumber > MAX_BUCKETS_NUMBER) {
+            throw new IllegalArgumentException("Buckets number must be in range (0, " + MAX_BUCKETS_NUMBER + "]: " + bucketsNumber);
+        }
+        if (unit.toMillis(lease) <= 0) {
+            throw new IllegalArgumentException("Lease must be at least one millisecond: " + lease + " " + unit);
+        }
+        int size = Math.max(Integer.highestOneBit(bucketsNumber - 1) << 1, 1);
+        this.fingerprint = fingerprint;
+        this.mask = size - 1;
+        this.probes = Math.min(MAX_PROBES, size);
+        this.leaseMillis = unit.toMillis(lease);
+        this.bucketsOffset = HEADER_SIZE + (long) MAX_PROCESSES * PROCESS_SIZE;
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, bucketsOffset + (long) size * BUCKET_SIZE);
+        }
+        long layout = LAYOUT_MAGIC | size;
+        if (!WORDS.compareAndSet(table, 0, 0L, layout) && (long) WORDS.getVolatile(table, 0) != layout) {
+            throw new IllegalArgumentException("File " + file + " holds a lock table of another layout");
+        }
+        int index = register();
+        this.processOffset = HEADER_SIZE + (long) index * PROCESS_SIZE;
+        this.owner = (int) ((long) WORDS.getVolatile(table, (int) processOffset + Long.BYTES) << 16) | (index + 1);
+        this.renewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-locker-mapped-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(leaseMillis / 3, 1);
+        renewal.scheduleAtFixedRate(this::renew, period, period, MILLISECONDS);
+    }
+
+    @Override
+    public void lock(ID id) {
+        checkOpen();
+        Entry entry = retain(id);
+        entry.local.lock();
+        if (entry.local.getHoldCount() > 1) {
+            return;
+        }
+        try {
+            acquireSlot(entry, 0, false);
+        } catch (Throwable e) {
+            entry.local.unlock();
+            release(entry);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        checkOpen();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Entry entry = retain(id);
+        boolean locked = false;
+        try {
+            if (!entry.local.tryLock(timeout, unit)) {
+                return false;
+            }
+            try {
+                locked = entry.local.getHoldCount() > 1 || acquireSlot(entry, deadline, true);
+                if (!locked && deadline - System.nanoTime() > 0 && Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            } finally {
+                if (!locked) {
+                    entry.local.unlock();
+                }
+            }
+            return locked;
+        } finally {
+            if (!locked) {
+                release(entry);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Entry entry = entries.get(mix(fingerprint.applyAsLong(id)));
+        if (entry == null || !entry.local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current thread");
+        }
+        try {
+            if (entry.local.getHoldCount() == 1 && !WORDS.compareAndSet(table, entry.slot + Long.BYTES, ownerWord(), 0L)) {
+                throw new LeaseExpiredException("Lease of " + id + " expired");
+            }
+        } finally {
+            entry.local.unlock();
+            release(entry);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        renewal.shutdownNow();
+        WORDS.setVolatile(table, (int) processOffset, 0L);
+    }
+
+    int getLocksNumber() {
+        return entries.size();
+    }
+
+    void stopRenewal() {
+        renewal.shutdownNow();
+    }
+
+    private int register() {
+        for (int index = 0; index < MAX_PROCESSES; index++) {
+            int offset = HEADER_SIZE + index * PROCESS_SIZE;
+            long now = System.currentTimeMillis();
+            long lease = (long) WORDS.getVolatile(table, offset);
+            if (lease < now && WORDS.compareAndSet(table, offset, lease, now + leaseMillis)) {
+                long generation = ((long) WORDS.getVolatile(table, offset + Long.BYTES) + 1) & 0x7FFF;
+                WORDS.setVolatile(table, offset + Long.BYTES, generation == 0 ? 1 : generation);
+                return index;
+            }
+        }
+        throw new IllegalStateException("Lock table has no free process entries");
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Locker is closed");
+        }
+    }
+
+    private void renew() {
+        WORDS.setVolatile(table, (int) processOffset, System.currentTimeMillis() + leaseMillis);
+    }
+
+    private boolean isAlive(int owner) {
+        if (owner == this.owner) {
+            return true;
+        }
+        int index = (owner & 0xFFFF) - 1;
+        if (index < 0 || index >= MAX_PROCESSES) {
+            return false;
+        }
+        int offset = HEADER_SIZE + index * PROCESS_SIZE;
+        return (long) WORDS.getVolatile(table, offset + Long.BYTES) == owner >>> 16
+                && (long) WORDS.getVolatile(table, offset) >= System.currentTimeMillis();
+    }
+
+    private boolean acquireSlot(Entry entry, long deadline, boolean timed) {
+        boolean interrupted = false;
+        try {
+            long backOff = 1;
+            while (!tryAcquireSlot(entry)) {
+                checkOpen();
+                if (timed && (Thread.currentThread().isInterrupted() || deadline - System.nanoTime() <= 0)) {
+                    return false;
+                }
+                if (backOff < GUARD_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, backOff);
+                    interrupted |= !timed && Thread.interrupted();
+                }
+                backOff = Math.min(backOff << 1, MAX_BACK_OFF_NANOS);
+            }
+            return true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean tryAcquireSlot(Entry entry) {
+        int home = bucketOffset(entry.bucket);
+        if (!lockGuard(home)) {
+            return false;
+        }
+        try {
+            int found = findSlot(home, entry.key);
+            if (found == NOT_FOUND && (long) WORDS.getVolatile(table, home + Long.BYTES) > 0) {
+                found = findOverflowSlot(entry);
+            }
+            if (found == HELD || found == BUSY) {
+                return false;
+            }
+            int free = found >= 0 ? found : freeSlot(home);
+            if (free >= 0) {
+                claim(free, entry);
+                return true;
+            }
+            return claimOverflowSlot(home, entry);
+        } finally {
+            WORDS.setVolatile(table, home, 0L);
+        }
+    }
+
+    private int findOverflowSlot(Entry entry) {
+        long live = 0;
+        for (int probe = 1; probe < probes; probe++) {
+            int bucket = bucketOffset((entry.bucket + probe) & mask);
+            if (!lockGuard(bucket)) {
+                return BUSY;
+            }
+            try {
+                for (int i = 0; i < BUCKET_SLOTS; i++) {
+                    int slot = bucket + BUCKET_HEADER_SIZE + i * SLOT_SIZE;
+                    long key = (long) WORDS.getVolatile(table, slot);
+                    if (!isLive(slot) || (key & mask) != entry.bucket) {
+                        continue;
+                    }
+                    if (key == entry.key) {
+                        return HELD;
+                    }
+                    live++;
+                }
+            } finally {
+                WORDS.setVolatile(table, bucket, 0L);
+            }
+        }
+        WORDS.setVolatile(table, bucketOffset(entry.bucket) + Long.BYTES, live);
+        return NOT_FOUND;
+    }
+
+    private boolean claimOverflowSlot(int home, Entry entry) {
+        for (int probe = 1; probe < probes; probe++) {
+            int bucket = bucketOffset((entry.bucket + probe) & mask);
+            if (!lockGuard(bucket)) {
+                return false;
+            }
+            try {
+                int free = freeSlot(bucket);
+                if (free >= 0) {
+                    claim(free, entry);
+                    WORDS.getAndAdd(table, home + Long.BYTES, 1L);
+                    return true;
+                }
+            } finally {
+                WORDS.setVolatile(table, bucket, 0L);
+            }
+        }
+        throw new IllegalStateException("Lock table is full: " + probes * BUCKET_SLOTS + " slots around bucket " + entry.bucket + " are held");
+    }
+
+    private int findSlot(int bucket, long key) {
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            int slot = bucket + BUCKET_HEADER_SIZE + i * SLOT_SIZE;
+            if ((long) WORDS.getVolatile(table, slot) == key && (long) WORDS.getVolatile(table, slot + Long.BYTES) != 0L) {
+                return isLive(slot) ? HELD : slot;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private int freeSlot(int bucket) {
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            int slot = bucket + BUCKET_HEADER_SIZE + i * SLOT_SIZE;
+            if (!isLive(slot)) {
+                return slot;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private boolean isLive(int slot) {
+        long word = (long) WORDS.getVolatile(table, slot + Long.BYTES);
+        return word != 0L && isAlive((int) word);
+    }
+
+    private void claim(int slot, Entry entry) {
+        WORDS.setVolatile(table, slot + Long.BYTES, 0L);
+        WORDS.setVolatile(table, slot, entry.key);
+        WORDS.setVolatile(table, slot + Long.BYTES, ownerWord());
+        entry.slot = slot;
+    }
+
+    private long ownerWord() {
+        return owner & 0xFFFFFFFFL;
+    }
+
+    private int bucketOffset(int bucket) {
+        return (int) (bucketsOffset + (long) bucket * BUCKET_SIZE);
+    }
+
+    private boolean lockGuard(int guard) {
+        for (int i = 0; i < GUARD_SPINS; i++) {
+            long current = (long) WORDS.getVolatile(table, guard);
+            if ((current == 0L || !isAlive((int) current)) && WORDS.compareAndSet(table, guard, current, (long) owner)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    private Entry retain(ID id) {
+        long key = mix(fingerprint.applyAsLong(id));
+        return entries.compute(key, (k, entry) -> {
+            if (entry == null) {
+                entry = new Entry(key);
+            }
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void release(Entry entry) {
+        entries.computeIfPresent(entry.key, (k, current) -> current == entry && --current.users == 0 ? null : current);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private final class Entry {
+        private final long key;
+        private final int bucket;
+        private final ReentrantLock local = new ReentrantLock();
+        private int slot;
+        private int users;
+
+        private Entry(long key) {
+            this.key = key;
+            this.bucket = (int) (key & mask);
+        }
+    }
+}
@@ -1,142 +1,134 @@
 package org.locker;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public final class NoDeadLockEntityLocker<ID> implements EntityLocker<ID> {
-    private final Object lockObject = new Object();
-    private final Map<ID, Resource<ID>> resourceId2resourceMap;
-    private final Map<Long, Resource<ID>> threadId2PendingResourceMap;
+    private final WaitForGraph<ID> waitForGraph;
     private final EntityLocker<ID> locker;
 
     public NoDeadLockEntityLocker(EntityLocker<ID> locker) {
         this.locker = locker;
-        resourceId2resourceMap = new HashMap<>();
-        threadId2PendingResourceMap = new HashMap<>();
+        waitForGraph = new WaitForGraph<>();
     }
 
     public void lock(ID id) {
-        synchronized (lockObject) {
-            Resource<ID> resource = resourceId2resourceMap.get(id);
-            if (resource != null && !resource.getOwner().equals(getThreadId())) {
-                addPendingResource(id, getThreadId());
-                if (hasDeadlock(id)) {
-                    removePendingResource();
-                    throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not lock %s.", getThreadId(), id));
-                }
+        LockOwner owner = LockOwner.current();
+        if (!tryLockNow(id)) {
+            beforeBlocking(id, owner);
+            try {
+                locker.lock(id);
+            } finally {
+                waitForGraph.removePendingResource(owner);
             }
         }
-        locker.lock(id);
-        synchronized (lockObject) {
-            removePendingResource();
-            addResource(id, getThreadId());
-        }
+        waitForGraph.addOwner(id, owner, false);
     }
 
     public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
-        boolean result = locker.tryLock(id, timeout, unit);
-        if (result) {
-            synchronized (lockObject) {
-                addResource(id, getThreadId());
+        LockOwner owner = LockOwner.current();
+        if (!tryLockNow(id)) {
+            beforeBlocking(id, owner);
+            try {
+                if (!locker.tryLock(id, timeout, unit)) {
+                    return false;
+                }
+            } finally {
+                waitForGraph.removePendingResource(owner);
             }
         }
-        return result;
+        waitForGraph.addOwner(id, owner, false);
+        return true;
     }
 
     public void unlock(ID id) {
-        synchronized (lockObject) {
-            removeResource(id);
-        }
+        waitForGraph.removeOwner(id, LockOwner.current(), false);
         locker.unlock(id);
     }
 
-    void addResource(ID id, long ownerThreadId) {
-        resourceId2resourceMap.put(id, new Resource<>(id, ownerThreadId));
+    @Override
+    public LockHandle acquire(ID id) {
+        LockOwner owner = LockOwner.current();
+        LockHandle handle = tryAcquireNow(id);
+        if (handle == null) {
+            beforeBlocking(id, owner);
+            try {
+                handle = locker.acquire(id);
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+        }
+        return toHandle(id, owner, waitForGraph.addOwner(id, owner, false), handle);
     }
 
-    void addResource(ID id) {
-        resourceId2resourceMap.put(id, new Resource<>(id));
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.current();
+        LockHandle handle = tryAcquireNow(id);
+        if (handle == null) {
+            beforeBlocking(id, owner);
+            try {
+                handle = locker.tryAcquire(id, timeout, unit);
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+            if (handle == null) {
+                return null;
+            }
+        }
+        return toHandle(id, owner, waitForGraph.addOwner(id, owner, false), handle);
     }
 
-    void addPendingResource(ID id, long pendingThreadId) {
-        threadId2PendingResourceMap.put(pendingThreadId, resourceId2resourceMap.get(id));
+    void addResource(ID id, LockOwner owner) {
+        waitForGraph.addOwner(id, owner, false);
     }
 
-    boolean hasDeadlock(ID id) {
-        Set<Resource<ID>> visitedResources = new HashSet<>();
-        return hasNextPendingResource(id, visitedResources);
+    void addResource(ID id) {
+        waitForGraph.addResource(id);
     }
 
-    private void removeResource(ID id) {
-        resourceId2resourceMap.remove(id);
+    void addPendingResource(ID id, LockOwner pendingOwner) {
+        waitForGraph.addPendingResource(id, pendingOwner, false);
     }
 
-    private void removePendingResource() {
-        threadId2PendingResourceMap.remove(getThreadId());
+    boolean hasDeadlock(ID id) {
+        return waitForGraph.hasDeadlock(id, false, LockOwner.current());
     }
 
-    private boolean hasNextPendingResource(ID neededResourceId, Set<Resource<ID>> visitedResources) {
-        Resource<ID> neededResource = resourceId2resourceMap.get(neededResourceId);
-        if (visitedResources.contains(neededResource)) {
-            return neededResource.getOwner() != getThreadId();
+    private boolean tryLockNow(ID id) {
+        try {
+            return locker.tryLock(id, 0, NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
+    }
 
-        Long neededResourceOwnerId = neededResource.getOwner();
-        if (neededResourceOwnerId == null) {
-            return false;
+    private LockHandle tryAcquireNow(ID id) {
+        try {
+            return locker.tryAcquire(id, 0, NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
+    }
 
-        Resource<ID> pendingResource = threadId2PendingResourceMap.get(neededResourceOwnerId);
-        if (pendingResource == null) {
-            return false;
+    private void beforeBlocking(ID id, LockOwner owner) {
+        if (!waitForGraph.addPendingResourceIfNoDeadlock(id, owner, false)) {
+            throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not lock %s.", getThreadId(), id));
         }
+    }
 
-        visitedResources.add(neededResource);
-        return hasNextPendingResource(pendingResource.getId(), visitedResources);
+    private LockHandle toHandle(ID id, LockOwner owner, WaitForGraph.Resource resource, LockHandle handle) {
+        return () -> {
+            waitForGraph.removeOwner(id, resource, owner, false);
+            handle.unlock();
+        };
     }
 
     private long getThreadId() {
         return Thread.currentThread().getId();
     }
-
-    private static class Resource<ID> {
-        private final ID id;
-        private Long owner;
-
-        public Resource(ID id, Long owner) {
-            this.id = id;
-            this.owner = owner;
-        }
-
-        public Resource(ID id) {
-            this.id = id;
-        }
-
-        public ID getId() {
-            return id;
-        }
-
-        public Long getOwner() {
-            return owner;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Resource<?> resource = (Resource<?>) o;
-            return id.equals(resource.id) && owner.equals(resource.owner);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(id, owner);
-        }
-    }
 }
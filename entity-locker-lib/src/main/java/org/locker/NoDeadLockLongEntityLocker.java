@@ -0,0 +1,149 @@
+package org.locker;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class NoDeadLockLongEntityLocker implements LongEntityLocker {
+    private final WaitForGraph<Long> waitForGraph;
+    private final LongEntityLocker locker;
+
+    public NoDeadLockLongEntityLocker(LongEntityLocker locker) {
+        this.locker = locker;
+        waitForGraph = new WaitForGraph<>();
+    }
+
+    @Override
+    public void lock(long id) {
+        LockOwner owner = LockOwner.current();
+        Holds holds = holdsOf(owner);
+        if (!tryLockNow(id)) {
+            beforeBlocking(id, owner, holds);
+            try {
+                locker.lock(id);
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+        }
+        holds.add(id);
+    }
+
+    @Override
+    public boolean tryLock(long id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.current();
+        Holds holds = holdsOf(owner);
+        if (!tryLockNow(id)) {
+            beforeBlocking(id, owner, holds);
+            try {
+                if (!locker.tryLock(id, timeout, unit)) {
+                    return false;
+                }
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+        }
+        holds.add(id);
+        return true;
+    }
+
+    @Override
+    public void unlock(long id) {
+        LockOwner owner = LockOwner.current();
+        if (holdsOf(owner).remove(id)) {
+            waitForGraph.removeOwner(id, owner, false);
+        }
+        locker.unlock(id);
+    }
+
+    private Holds holdsOf(LockOwner owner) {
+        Holds holds = (Holds) owner.getAttachment(this);
+        if (holds == null) {
+            holds = new Holds();
+            owner.attach(this, holds);
+        }
+        return holds;
+    }
+
+    private boolean tryLockNow(long id) {
+        try {
+            return locker.tryLock(id, 0, NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void beforeBlocking(long id, LockOwner owner, Holds holds) {
+        holds.publish(waitForGraph, owner);
+        if (!waitForGraph.addPendingResourceIfNoDeadlock(id, owner, false)) {
+            throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not lock %s.", getThreadId(), id));
+        }
+    }
+
+    private long getThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    private static final class Holds {
+        private long[] ids = new long[8];
+        private int[] counts = new int[8];
+        private boolean[] published = new boolean[8];
+        private int size;
+        private int unpublished;
+
+        private void add(long id) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                counts[index]++;
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+                counts = Arrays.copyOf(counts, size << 1);
+                published = Arrays.copyOf(published, size << 1);
+            }
+            ids[size] = id;
+            counts[size] = 1;
+            published[size] = false;
+            size++;
+            unpublished++;
+        }
+
+        private boolean remove(long id) {
+            int index = indexOf(id);
+            if (index < 0 || --counts[index] > 0) {
+                return false;
+            }
+            boolean wasPublished = published[index];
+            if (!wasPublished) {
+                unpublished--;
+            }
+            size--;
+            ids[index] = ids[size];
+            counts[index] = counts[size];
+            published[index] = published[size];
+            return wasPublished;
+        }
+
+        private void publish(WaitForGraph<Long> waitForGraph, LockOwner owner) {
+            for (int i = 0; unpublished > 0 && i < size; i++) {
+                if (!published[i]) {
+                    waitForGraph.addOwner(ids[i], owner, false);
+                    published[i] = true;
+                    unpublished--;
+                }
+            }
+        }
+
+        private int indexOf(long id) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public final class NoDeadLockReadWriteEntityLocker<ID> implements ReadWriteEntityLocker<ID> {
+    private final WaitForGraph<ID> waitForGraph;
+    private final ReadWriteEntityLocker<ID> locker;
+
+    public NoDeadLockReadWriteEntityLocker(ReadWriteEntityLocker<ID> locker) {
+        this.locker = locker;
+        waitForGraph = new WaitForGraph<>();
+    }
+
+    @Override
+    public void lock(ID id) {
+        lock(id, false);
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryLock(id, false, timeout, unit);
+    }
+
+    @Override
+    public void unlock(ID id) {
+        waitForGraph.removeOwner(id, LockOwner.current(), false);
+        locker.unlock(id);
+    }
+
+    @Override
+    public void lockShared(ID id) {
+        lock(id, true);
+    }
+
+    @Override
+    public boolean tryLockShared(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryLock(id, true, timeout, unit);
+    }
+
+    @Override
+    public void unlockShared(ID id) {
+        waitForGraph.removeOwner(id, LockOwner.current(), true);
+        locker.unlockShared(id);
+    }
+
+    private void lock(ID id, boolean shared) {
+        LockOwner owner = LockOwner.current();
+        checkUpgrade(id, owner, shared);
+        if (!tryLockNow(id, shared)) {
+            beforeBlocking(id, owner, shared);
+            try {
+                if (shared) {
+                    locker.lockShared(id);
+                } else {
+                    locker.lock(id);
+                }
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+        }
+        waitForGraph.addOwner(id, owner, shared);
+    }
+
+    private boolean tryLock(ID id, boolean shared, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.current();
+        checkUpgrade(id, owner, shared);
+        if (!tryLockNow(id, shared)) {
+            beforeBlocking(id, owner, shared);
+            try {
+                boolean result = shared ? locker.tryLockShared(id, timeout, unit) : locker.tryLock(id, timeout, unit);
+                if (!result) {
+                    return false;
+                }
+            } finally {
+                waitForGraph.removePendingResource(owner);
+            }
+        }
+        waitForGraph.addOwner(id, owner, shared);
+        return true;
+    }
+
+    private void checkUpgrade(ID id, LockOwner owner, boolean shared) {
+        if (!shared && waitForGraph.isHeldShared(id, owner) && !waitForGraph.isHeldExclusively(id, owner)) {
+            throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not upgrade shared lock of %s.", getThreadId(), id));
+        }
+    }
+
+    private void beforeBlocking(ID id, LockOwner owner, boolean shared) {
+        if (!waitForGraph.addPendingResourceIfNoDeadlock(id, owner, shared)) {
+            throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not lock %s.", getThreadId(), id));
+        }
+    }
+
+    private boolean tryLockNow(ID id, boolean shared) {
+        try {
+            return shared ? locker.tryLockShared(id, 0, NANOSECONDS) : locker.tryLock(id, 0, NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long getThreadId() {
+        return Thread.currentThread().getId();
+    }
+}
@@ -0,0 +1,87 @@
+package org.locker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public final class OwnedEntityLocker<ID> implements EntityLocker<ID> {
+    private final Map<ID, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public void lock(ID id) {
+        LockOwner owner = LockOwner.current();
+        Entry entry = retain(id);
+        if (entry.owner == owner) {
+            entry.holds++;
+            return;
+        }
+        entry.permit.acquireUninterruptibly();
+        grant(entry, owner);
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.current();
+        Entry entry = retain(id);
+        if (entry.owner == owner) {
+            entry.holds++;
+            return true;
+        }
+        boolean acquired = false;
+        try {
+            acquired = entry.permit.tryAcquire(timeout, unit);
+        } finally {
+            if (!acquired) {
+                release(id, entry);
+            }
+        }
+        if (acquired) {
+            grant(entry, owner);
+        }
+        return acquired;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Entry entry = entries.get(id);
+        if (entry == null || entry.owner != LockOwner.current()) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current owner");
+        }
+        if (--entry.holds == 0) {
+            entry.owner = null;
+            entry.permit.release();
+        }
+        release(id, entry);
+    }
+
+    int getLocksNumber() {
+        return entries.size();
+    }
+
+    private void grant(Entry entry, LockOwner owner) {
+        entry.holds = 1;
+        entry.owner = owner;
+    }
+
+    private Entry retain(ID id) {
+        return entries.compute(id, (key, entry) -> {
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void release(ID id, Entry entry) {
+        entries.computeIfPresent(id, (key, current) -> current == entry && --current.users == 0 ? null : current);
+    }
+
+    private static final class Entry {
+        private final Semaphore permit = new Semaphore(1);
+        private volatile LockOwner owner;
+        private int holds;
+        private int users;
+    }
+}
@@ -0,0 +1,416 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class PooledEntityLocker<ID> implements EntityLocker<ID> {
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private final Segment<ID>[] segments;
+    private final int mask;
+
+    public PooledEntityLocker() {
+        this(Runtime.getRuntime().availableProcessors() * 4, DEFAULT_POOL_SIZE, true);
+    }
+
+    public PooledEntityLocker(boolean reentrant) {
+        this(Runtime.getRuntime().availableProcessors() * 4, DEFAULT_POOL_SIZE, reentrant);
+    }
+
+    @SuppressWarnings("unchecked")
+    public PooledEntityLocker(int segmentsNumber, int poolSize, boolean reentrant) {
+        if (segmentsNumber <= 0 || segmentsNumber > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Segments number must be in range (0, " + MAX_SEGMENTS + "]: " + segmentsNumber);
+        }
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Pool size must not be negative: " + poolSize);
+        }
+        int size = Math.max(Integer.highestOneBit(segmentsNumber - 1) << 1, 1);
+        segments = (Segment<ID>[]) new Segment<?>[size];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<>(poolSize, reentrant);
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void lock(ID id) {
+        lockNode(id);
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryLockNode(id, toNanos(timeout, unit)) != null;
+    }
+
+    @Override
+    public LockHandle acquire(ID id) {
+        return lockNode(id)::unlock;
+    }
+
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        Node<ID> node = tryLockNode(id, toNanos(timeout, unit));
+        return node == null ? null : node::unlock;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        int hash = spread(id.hashCode());
+        Node<ID> node = segmentFor(hash).find(id, hash);
+        if (node != null) {
+            node.release(1);
+        }
+    }
+
+    private Node<ID> lockNode(ID id) {
+        int hash = spread(id.hashCode());
+        Segment<ID> segment = segmentFor(hash);
+        while (true) {
+            Node<ID> node = segment.find(id, hash);
+            if (node == null) {
+                node = segment.bind(id, hash);
+                if (node != null) {
+                    return node;
+                }
+                continue;
+            }
+            node.acquire(1);
+            if (node.isBoundTo(id, hash)) {
+                return node;
+            }
+            node.release(1);
+        }
+    }
+
+    private Node<ID> tryLockNode(ID id, long nanos) throws InterruptedException {
+        int hash = spread(id.hashCode());
+        Segment<ID> segment = segmentFor(hash);
+        long deadline = System.nanoTime() + nanos;
+        while (true) {
+            Node<ID> node = segment.find(id, hash);
+            if (node == null) {
+                node = segment.bind(id, hash);
+                if (node != null) {
+                    return node;
+                }
+                continue;
+            }
+            if (!node.tryAcquireNanos(1, deadline - System.nanoTime())) {
+                return null;
+            }
+            if (node.isBoundTo(id, hash)) {
+                return node;
+            }
+            node.release(1);
+        }
+    }
+
+    int getLocksNumber() {
+        int number = 0;
+        for (Segment<ID> segment : segments) {
+            number += segment.count(true);
+        }
+        return number;
+    }
+
+    int getNodesNumber() {
+        int number = 0;
+        for (Segment<ID> segment : segments) {
+            number += segment.count(false);
+        }
+        return number;
+    }
+
+    int getCapacity() {
+        int capacity = 0;
+        for (Segment<ID> segment : segments) {
+            capacity += segment.table.slots.length();
+        }
+        return capacity;
+    }
+
+    private Segment<ID> segmentFor(int hash) {
+        return segments[(hash >>> 16) & mask];
+    }
+
+    private static long toNanos(long timeout, TimeUnit unit) {
+        if (unit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+        return unit.toNanos(timeout);
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < MAX_CAPACITY && capacity < size * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static final class Segment<ID> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+        private final Node<ID> moved = new Node<>(false);
+        private final AtomicReferenceArray<Node<ID>> pool;
+        private final boolean reentrant;
+        private volatile Table<ID> table = new Table<>(INITIAL_CAPACITY);
+
+        private Segment(int poolSize, boolean reentrant) {
+            this.pool = new AtomicReferenceArray<>(poolSize);
+            this.reentrant = reentrant;
+        }
+
+        private Node<ID> find(ID id, int hash) {
+            while (true) {
+                AtomicReferenceArray<Node<ID>> slots = table.slots;
+                int mask = slots.length() - 1;
+                int index = hash & mask;
+                for (int probes = 0; probes <= mask; probes++, index = (index + 1) & mask) {
+                    Node<ID> node = slots.get(index);
+                    if (node == null) {
+                        return null;
+                    }
+                    if (node == moved) {
+                        break;
+                    }
+                    if (node.isBoundTo(id, hash)) {
+                        return node;
+                    }
+                }
+                if (slots.get(index) != moved) {
+                    return null;
+                }
+                awaitRehash();
+            }
+        }
+
+        private Node<ID> bind(ID id, int hash) {
+            Table<ID> table = this.table;
+            AtomicReferenceArray<Node<ID>> slots = table.slots;
+            int mask = slots.length() - 1;
+            int index = hash & mask;
+            Node<ID> node = null;
+            for (int probes = 0; probes <= mask; probes++, index = (index + 1) & mask) {
+                Node<ID> current = slots.get(index);
+                if (current == null) {
+                    if (node == null) {
+                        node = take(id, hash);
+                    }
+                    if (slots.compareAndSet(index, null, node)) {
+                        if (table.used.incrementAndGet() > table.threshold) {
+                            rehash(table);
+                        }
+                        return node;
+                    }
+                    current = slots.get(index);
+                }
+                if (current == moved) {
+                    recycle(node);
+                    awaitRehash();
+                    return null;
+                }
+                if (current.isBoundTo(id, hash)) {
+                    recycle(node);
+                    return null;
+                }
+            }
+            recycle(node);
+            rehash(table);
+            return null;
+        }
+
+        private Node<ID> take(ID id, int hash) {
+            Node<ID> node = null;
+            for (int i = 0; i < pool.length() && node == null; i++) {
+                node = pool.getAndSet(i, null);
+                if (node != null && !node.claim()) {
+                    node = null;
+                }
+            }
+            if (node == null) {
+                node = new Node<>(reentrant);
+                node.claim();
+            }
+            node.bind(id, hash);
+            return node;
+        }
+
+        private void recycle(Node<ID> node) {
+            if (node == null) {
+                return;
+            }
+            node.unbind();
+            node.release(1);
+            for (int i = 0; i < pool.length(); i++) {
+                if (pool.get(i) == null && pool.compareAndSet(i, null, node)) {
+                    return;
+                }
+            }
+        }
+
+        private void awaitRehash() {
+            lock();
+            unlock();
+        }
+
+        private void rehash(Table<ID> old) {
+            lock();
+            try {
+                if (table != old) {
+                    return;
+                }
+                AtomicReferenceArray<Node<ID>> slots = old.slots;
+                int live = 0;
+                for (int i = 0; i < slots.length(); i++) {
+                    Node<ID> node = slots.get(i);
+                    if (node == null && slots.compareAndSet(i, null, moved)) {
+                        continue;
+                    }
+                    node = slots.get(i);
+                    if (node.isFree() && node.claim()) {
+                        recycle(node);
+                    } else {
+                        live++;
+                    }
+                }
+                Table<ID> resized = new Table<>(capacityFor(live));
+                for (int i = 0; i < slots.length(); i++) {
+                    Node<ID> node = slots.get(i);
+                    if (node != moved && node.isBound()) {
+                        resized.put(node);
+                    }
+                }
+                table = resized;
+            } finally {
+                unlock();
+            }
+        }
+
+        private int count(boolean locked) {
+            AtomicReferenceArray<Node<ID>> slots = table.slots;
+            int number = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                Node<ID> node = slots.get(i);
+                if (node != null && node != moved && node.isBound() && (!locked || node.isLocked())) {
+                    number++;
+                }
+            }
+            return number;
+        }
+    }
+
+    private static final class Table<ID> {
+        private final AtomicReferenceArray<Node<ID>> slots;
+        private final AtomicInteger used = new AtomicInteger();
+        private final int threshold;
+
+        private Table(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.threshold = capacity / 4 * 3;
+        }
+
+        private void put(Node<ID> node) {
+            int mask = slots.length() - 1;
+            int index = node.hash & mask;
+            while (slots.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            slots.set(index, node);
+            used.incrementAndGet();
+        }
+    }
+
+    private static final class Node<ID> extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+        private final boolean reentrant;
+        private volatile int hash;
+        private volatile ID key;
+
+        private Node(boolean reentrant) {
+            this.reentrant = reentrant;
+        }
+
+        private boolean isBoundTo(ID id, int hash) {
+            ID key = this.key;
+            return this.hash == hash && key != null && (key == id || key.equals(id));
+        }
+
+        private boolean isBound() {
+            return key != null;
+        }
+
+        private boolean isLocked() {
+            return getState() != 0;
+        }
+
+        private boolean isFree() {
+            return getState() == 0 && !hasQueuedThreads();
+        }
+
+        private boolean claim() {
+            if (compareAndSetState(0, 1)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+                return true;
+            }
+            return false;
+        }
+
+        private void bind(ID id, int hash) {
+            this.hash = hash;
+            this.key = id;
+        }
+
+        private void unbind() {
+            this.key = null;
+        }
+
+        private void unlock() {
+            release(1);
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            int state = getState();
+            if (state == 0) {
+                return claim();
+            }
+            if (getExclusiveOwnerThread() == Thread.currentThread()) {
+                if (!reentrant) {
+                    throw new IllegalMonitorStateException("Non-reentrant lock is already held by the current thread");
+                }
+                setState(state + acquires);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            int state = getState() - releases;
+            if (state == 0) {
+                setExclusiveOwnerThread(null);
+            }
+            setState(state);
+            return state == 0;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+    }
+}
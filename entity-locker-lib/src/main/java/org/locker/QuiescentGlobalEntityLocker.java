@@ -0,0 +1,264 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class QuiescentGlobalEntityLocker<ID> {
+    private static final int PADDING_SHIFT = 4;
+    private static final int MAX_STRIPES = 1 << 16;
+    private final EntityLocker<ID> locker;
+    private final AtomicIntegerArray inFlight;
+    private final int mask;
+    private final ReentrantLock globalLock = new ReentrantLock();
+    private final ThreadLocal<Reader> readers;
+    private volatile boolean globalRequested;
+    private volatile Thread globalWaiter;
+
+    public QuiescentGlobalEntityLocker(EntityLocker<ID> locker) {
+        this(locker, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public QuiescentGlobalEntityLocker(EntityLocker<ID> locker, int stripesNumber) {
+        if (stripesNumber <= 0 || stripesNumber > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripes number must be in range (0, " + MAX_STRIPES + "]: " + stripesNumber);
+        }
+        int size = Math.max(Integer.highestOneBit(stripesNumber - 1) << 1, 1);
+        this.locker = locker;
+        this.inFlight = new AtomicIntegerArray(size << PADDING_SHIFT);
+        this.mask = size - 1;
+        this.readers = ThreadLocal.withInitial(this::newReader);
+    }
+
+    public void lock(ID id) throws InterruptedException {
+        Reader reader = readers.get();
+        enter(reader);
+        try {
+            locker.lock(id);
+        } catch (Throwable e) {
+            exit(reader);
+            throw e;
+        }
+    }
+
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Reader reader = readers.get();
+        if (!tryEnter(reader, deadline)) {
+            return false;
+        }
+        boolean result = false;
+        try {
+            result = locker.tryLock(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return result;
+        } finally {
+            if (!result) {
+                exit(reader);
+            }
+        }
+    }
+
+    public void unlock(ID id) {
+        locker.unlock(id);
+        exit(readers.get());
+    }
+
+    public LockHandle acquire(ID id) throws InterruptedException {
+        Reader reader = readers.get();
+        enter(reader);
+        LockHandle handle;
+        try {
+            handle = locker.acquire(id);
+        } catch (Throwable e) {
+            exit(reader);
+            throw e;
+        }
+        return () -> release(handle, reader);
+    }
+
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Reader reader = readers.get();
+        if (!tryEnter(reader, deadline)) {
+            return null;
+        }
+        LockHandle handle = null;
+        try {
+            handle = locker.tryAcquire(id, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } finally {
+            if (handle == null) {
+                exit(reader);
+            }
+        }
+        if (handle == null) {
+            return null;
+        }
+        LockHandle acquired = handle;
+        return () -> release(acquired, reader);
+    }
+
+    public void lock() throws InterruptedException {
+        globalLock.lockInterruptibly();
+        if (globalLock.getHoldCount() > 1) {
+            return;
+        }
+        try {
+            awaitQuiescence(Long.MAX_VALUE);
+        } catch (Throwable e) {
+            releaseGlobalLock();
+            throw e;
+        }
+    }
+
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!globalLock.tryLock(timeout, unit)) {
+            return false;
+        }
+        if (globalLock.getHoldCount() > 1) {
+            return true;
+        }
+        boolean result = false;
+        try {
+            result = awaitQuiescence(deadline);
+            return result;
+        } finally {
+            if (!result) {
+                releaseGlobalLock();
+            }
+        }
+    }
+
+    public void unlock() {
+        if (globalLock.getHoldCount() == 1) {
+            releaseGlobalLock();
+        } else {
+            globalLock.unlock();
+        }
+    }
+
+    boolean isGloballyLocked() {
+        return globalRequested;
+    }
+
+    private Reader newReader() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return new Reader(Thread.currentThread(), (hash & mask) << PADDING_SHIFT);
+    }
+
+    private void enter(Reader reader) throws InterruptedException {
+        if (reader.depth++ > 0) {
+            return;
+        }
+        while (true) {
+            inFlight.incrementAndGet(reader.slot);
+            if (!globalRequested || globalLock.isHeldByCurrentThread()) {
+                return;
+            }
+            backOff(reader);
+            try {
+                globalLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                reader.depth--;
+                throw e;
+            }
+            globalLock.unlock();
+        }
+    }
+
+    private boolean tryEnter(Reader reader, long deadline) throws InterruptedException {
+        if (reader.depth++ > 0) {
+            return true;
+        }
+        while (true) {
+            inFlight.incrementAndGet(reader.slot);
+            if (!globalRequested || globalLock.isHeldByCurrentThread()) {
+                return true;
+            }
+            backOff(reader);
+            boolean locked;
+            try {
+                locked = globalLock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                reader.depth--;
+                throw e;
+            }
+            if (!locked) {
+                reader.depth--;
+                return false;
+            }
+            globalLock.unlock();
+        }
+    }
+
+    private void exit(Reader reader) {
+        if (reader.depth <= 0) {
+            throw new IllegalMonitorStateException("Entity lock is not held by the current thread");
+        }
+        if (--reader.depth == 0) {
+            backOff(reader);
+        }
+    }
+
+    private void release(LockHandle handle, Reader reader) {
+        if (reader.thread != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("Entity lock handle is not owned by the current thread");
+        }
+        handle.unlock();
+        exit(reader);
+    }
+
+    private void backOff(Reader reader) {
+        inFlight.decrementAndGet(reader.slot);
+        if (globalRequested) {
+            Thread waiter = globalWaiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    private boolean awaitQuiescence(long deadline) throws InterruptedException {
+        int own = readers.get().depth > 0 ? 1 : 0;
+        globalWaiter = Thread.currentThread();
+        globalRequested = true;
+        while (inFlight() != own) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(this, nanos);
+        }
+        return true;
+    }
+
+    private int inFlight() {
+        int sum = 0;
+        for (int i = 0; i < inFlight.length(); i += 1 << PADDING_SHIFT) {
+            sum += inFlight.get(i);
+        }
+        return sum;
+    }
+
+    private void releaseGlobalLock() {
+        globalRequested = false;
+        globalWaiter = null;
+        globalLock.unlock();
+    }
+
+    private static final class Reader {
+        private final Thread thread;
+        private final int slot;
+        private int depth;
+
+        private Reader(Thread thread, int slot) {
+            this.thread = thread;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public interface ReadWriteEntityLocker<ID> extends EntityLocker<ID> {
+
+    void lockShared(ID id);
+
+    boolean tryLockShared(ID id, long timeout, TimeUnit unit) throws InterruptedException;
+
+    void unlockShared(ID id);
+}
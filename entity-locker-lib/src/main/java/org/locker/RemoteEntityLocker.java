@@ -0,0 +1,267 @@
+package org.locker;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.locker.LockServer.DEADLOCK;
+import static org.locker.LockServer.HEADER_SIZE;
+import static org.locker.LockServer.LOCK;
+import static org.locker.LockServer.MAX_FRAME_SIZE;
+import static org.locker.LockServer.OK;
+import static org.locker.LockServer.RESPONSE_SIZE;
+import static org.locker.LockServer.TIMEOUT;
+import static org.locker.LockServer.UNLOCK;
+
+public final class RemoteEntityLocker<ID> implements EntityLocker<ID>, AutoCloseable {
+    private static final int NO_RESPONSE = 0;
+    private final SocketChannel channel;
+    private final Function<? super ID, byte[]> encoder;
+    private final ThreadLocal<Map<ID, int[]>> leases = ThreadLocal.withInitial(HashMap::new);
+    private final Map<Integer, CompletableFuture<Byte>> pending = new ConcurrentHashMap<>();
+    private final Queue<ByteBuffer> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(MAX_FRAME_SIZE + 4);
+    private final Thread reader;
+    private volatile boolean closed;
+
+    public RemoteEntityLocker(InetSocketAddress address, Function<? super ID, byte[]> encoder) throws IOException {
+        this.encoder = encoder;
+        this.channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        this.reader = new Thread(this::readResponses, "entity-locker-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void lock(ID id) {
+        Map<ID, int[]> leases = this.leases.get();
+        int[] holds = leases.get(id);
+        if (holds != null) {
+            holds[0]++;
+            return;
+        }
+        if (await(id, submit(id, nextRequestId(), -1)) != OK) {
+            throw new IllegalStateException("Lock of " + id + " failed");
+        }
+        leases.put(id, new int[]{1});
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        Map<ID, int[]> leases = this.leases.get();
+        int[] holds = leases.get(id);
+        if (holds != null) {
+            holds[0]++;
+            return true;
+        }
+        long timeoutNanos = Math.max(unit.toNanos(timeout), 0);
+        long deadline = System.nanoTime() + timeoutNanos;
+        int requestId = nextRequestId();
+        CompletableFuture<Byte> response = submit(id, requestId, timeoutNanos);
+        byte status;
+        try {
+            status = checkDeadlock(id, response.get(Math.max(deadline - System.nanoTime(), 0), NANOSECONDS));
+        } catch (TimeoutException e) {
+            status = abandon(id, requestId, response);
+        } catch (InterruptedException e) {
+            if (abandon(id, requestId, response) == OK) {
+                send(UNLOCK, NO_RESPONSE, 0, encoder.apply(id));
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Lock server connection failed", e.getCause());
+        }
+        if (status == TIMEOUT) {
+            return false;
+        }
+        if (status != OK) {
+            throw new IllegalStateException("Lock of " + id + " failed");
+        }
+        leases.put(id, new int[]{1});
+        return true;
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Map<ID, int[]> leases = this.leases.get();
+        int[] holds = leases.get(id);
+        if (holds == null) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current thread");
+        }
+        if (--holds[0] > 0) {
+            return;
+        }
+        leases.remove(id);
+        send(UNLOCK, NO_RESPONSE, 0, encoder.apply(id));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getBatches() {
+        return batches.sum();
+    }
+
+    private CompletableFuture<Byte> submit(ID id, int requestId, long timeoutNanos) {
+        CompletableFuture<Byte> response = new CompletableFuture<>();
+        pending.put(requestId, response);
+        try {
+            send(LOCK, requestId, timeoutNanos, encoder.apply(id));
+        } catch (RuntimeException e) {
+            pending.remove(requestId);
+            throw e;
+        }
+        return response;
+    }
+
+    private byte abandon(ID id, int requestId, CompletableFuture<Byte> response) {
+        if (pending.remove(requestId) != null) {
+            send(UNLOCK, NO_RESPONSE, 0, encoder.apply(id));
+            return TIMEOUT;
+        }
+        return await(id, response);
+    }
+
+    private byte checkDeadlock(ID id, byte status) {
+        if (status == DEADLOCK) {
+            throw new DeadlockDetectedException(format("Deadlock detected. Thread id %s could not lock %s.",
+                    Thread.currentThread().getId(), id));
+        }
+        return status;
+    }
+
+    private byte await(ID id, CompletableFuture<Byte> response) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return checkDeadlock(id, response.get());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Lock server connection failed", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int nextRequestId() {
+        while (true) {
+            int requestId = requestIds.incrementAndGet();
+            if (requestId != NO_RESPONSE) {
+                return requestId;
+            }
+        }
+    }
+
+    private void send(byte op, int requestId, long timeoutNanos, byte[] key) {
+        if (HEADER_SIZE + key.length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Encoded entity id is too long: " + key.length);
+        }
+        if (closed) {
+            throw new IllegalStateException("Lock server connection is closed");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(4 + HEADER_SIZE + key.length);
+        frame.putInt(HEADER_SIZE + key.length)
+                .put(op)
+                .putInt(requestId)
+                .putLong(Thread.currentThread().getId())
+                .putLong(timeoutNanos)
+                .put(key)
+                .flip();
+        outgoing.add(frame);
+        requests.increment();
+        flush();
+    }
+
+    private void flush() {
+        while (!outgoing.isEmpty() && flushing.compareAndSet(false, true)) {
+            try {
+                for (ByteBuffer frame; (frame = outgoing.peek()) != null && frame.remaining() <= batch.remaining(); ) {
+                    batch.put(outgoing.poll());
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                batches.increment();
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                batch.clear();
+                flushing.set(false);
+            }
+        }
+    }
+
+    private void readResponses() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RESPONSE_SIZE * 1024);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RESPONSE_SIZE) {
+                    CompletableFuture<Byte> response = pending.remove(buffer.getInt());
+                    byte status = buffer.get();
+                    if (response != null) {
+                        response.complete(status);
+                    }
+                }
+                buffer.compact();
+            }
+            fail(new IOException("Lock server closed the connection"));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        closed = true;
+        outgoing.clear();
+        for (Integer requestId : pending.keySet()) {
+            CompletableFuture<Byte> response = pending.remove(requestId);
+            if (response != null) {
+                response.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.locker;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class StripedEntityLocker<ID> implements EntityLocker<ID> {
+    private static final int MAX_STRIPES = 1 << 30;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedEntityLocker() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    public StripedEntityLocker(int stripesNumber) {
+        if (stripesNumber <= 0 || stripesNumber > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripes number must be in range (0, " + MAX_STRIPES + "]: " + stripesNumber);
+        }
+        int size = Integer.highestOneBit(stripesNumber - 1) << 1;
+        stripes = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = stripes.length - 1;
+    }
+
+    @Override
+    public void lock(ID id) {
+        getStripe(id).lock();
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return getStripe(id).tryLock(timeout, unit);
+    }
+
+    @Override
+    public void unlock(ID id) {
+        getStripe(id).unlock();
+    }
+
+    @Override
+    public LockHandle acquire(ID id) {
+        ReentrantLock stripe = getStripe(id);
+        stripe.lock();
+        return stripe::unlock;
+    }
+
+    @Override
+    public LockHandle tryAcquire(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        ReentrantLock stripe = getStripe(id);
+        return stripe.tryLock(timeout, unit) ? stripe::unlock : null;
+    }
+
+    @Override
+    public void lockAll(Collection<ID> ids) {
+        LockOrdering.lockAll(this, sortByStripe(ids));
+    }
+
+    @Override
+    public boolean tryLockAll(Collection<ID> ids, long timeout, TimeUnit unit) throws InterruptedException {
+        return LockOrdering.tryLockAll(this, sortByStripe(ids), timeout, unit);
+    }
+
+    @Override
+    public void unlockAll(Collection<ID> ids) {
+        LockOrdering.unlockAll(this, sortByStripe(ids));
+    }
+
+    int getStripesNumber() {
+        return stripes.length;
+    }
+
+    int getStripeIndex(ID id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private List<ID> sortByStripe(Collection<ID> ids) {
+        return LockOrdering.sort(ids, Comparator.comparingInt(this::getStripeIndex));
+    }
+
+    private ReentrantLock getStripe(ID id) {
+        return stripes[getStripeIndex(id)];
+    }
+}
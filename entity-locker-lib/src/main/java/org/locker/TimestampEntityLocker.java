@@ -0,0 +1,221 @@
+package org.locker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+public final class TimestampEntityLocker<ID> implements EntityLocker<ID> {
+    private final DeadlockPreventionRule rule;
+    private final Map<ID, Entry> entries = new ConcurrentHashMap<>();
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
+
+    public TimestampEntityLocker(DeadlockPreventionRule rule) {
+        this.rule = rule;
+    }
+
+    @Override
+    public void lock(ID id) {
+        try {
+            acquire(id, false, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return acquire(id, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public void unlock(ID id) {
+        Transaction transaction = transactions.get();
+        Entry entry = entries.get(id);
+        if (transaction == null || entry == null) {
+            throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current thread");
+        }
+        entry.guard.lock();
+        try {
+            if (entry.holder != transaction) {
+                throw new IllegalMonitorStateException("Entity " + id + " is not locked by the current thread");
+            }
+            if (--entry.holds == 0) {
+                entry.holder = null;
+                entry.released.signalAll();
+            }
+        } finally {
+            entry.guard.unlock();
+        }
+        release(id, entry);
+        if (--transaction.holds == 0) {
+            if (transaction.aborted) {
+                transaction.aborted = false;
+                transaction.wounded = false;
+            } else {
+                transactions.remove();
+            }
+        }
+    }
+
+    private boolean acquire(ID id, boolean timed, long nanos) throws InterruptedException {
+        Transaction transaction = getTransaction();
+        checkWounded(transaction, id);
+        Entry entry = retain(id);
+        boolean acquired = false;
+        try {
+            acquired = await(entry, transaction, id, timed, System.nanoTime() + nanos);
+        } finally {
+            if (!acquired) {
+                release(id, entry);
+            }
+        }
+        if (!acquired) {
+            releaseIfIdle(transaction);
+            return false;
+        }
+        transaction.holds++;
+        return true;
+    }
+
+    private boolean await(Entry entry, Transaction transaction, ID id, boolean timed, long deadline) throws InterruptedException {
+        entry.guard.lock();
+        try {
+            while (true) {
+                if (entry.holder == null || entry.holder == transaction) {
+                    entry.holder = transaction;
+                    entry.holds++;
+                    return true;
+                }
+                Transaction wounded = resolveConflict(transaction, entry.holder, id);
+                if (wounded != null) {
+                    entry.guard.unlock();
+                    try {
+                        wake(wounded);
+                    } finally {
+                        entry.guard.lock();
+                    }
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (timed && remaining <= 0) {
+                    return false;
+                }
+                transaction.waitingOn = entry;
+                try {
+                    checkWounded(transaction, id);
+                    if (timed) {
+                        entry.released.awaitNanos(remaining);
+                    } else {
+                        entry.released.await();
+                    }
+                } finally {
+                    transaction.waitingOn = null;
+                }
+            }
+        } finally {
+            entry.guard.unlock();
+        }
+    }
+
+    private Transaction resolveConflict(Transaction transaction, Transaction holder, ID id) {
+        checkWounded(transaction, id);
+        boolean older = transaction.isOlderThan(holder);
+        if (rule == DeadlockPreventionRule.WAIT_DIE) {
+            if (!older) {
+                abort(transaction, format("Deadlock prevented. Thread id %s is younger than the holder of %s and dies.", getThreadId(), id));
+            }
+        } else if (older && !holder.wounded) {
+            holder.wounded = true;
+            return holder;
+        }
+        return null;
+    }
+
+    private void wake(Transaction transaction) {
+        Entry entry = transaction.waitingOn;
+        if (entry == null) {
+            return;
+        }
+        entry.guard.lock();
+        try {
+            entry.released.signalAll();
+        } finally {
+            entry.guard.unlock();
+        }
+    }
+
+    private void checkWounded(Transaction transaction, ID id) {
+        if (transaction.wounded) {
+            abort(transaction, format("Deadlock prevented. Thread id %s was wounded by an older transaction while locking %s.", getThreadId(), id));
+        }
+    }
+
+    private void abort(Transaction transaction, String message) {
+        transaction.aborted = true;
+        releaseIfIdle(transaction);
+        throw new DeadlockDetectedException(message);
+    }
+
+    private void releaseIfIdle(Transaction transaction) {
+        if (transaction.holds == 0 && !transaction.aborted) {
+            transactions.remove();
+        } else if (transaction.holds == 0) {
+            transaction.aborted = false;
+            transaction.wounded = false;
+        }
+    }
+
+    private Transaction getTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            transaction = new Transaction();
+            transactions.set(transaction);
+        }
+        return transaction;
+    }
+
+    private Entry retain(ID id) {
+        return entries.compute(id, (key, entry) -> {
+            if (entry == null) {
+                entry = new Entry();
+            }
+            entry.users++;
+            return entry;
+        });
+    }
+
+    private void release(ID id, Entry entry) {
+        entries.computeIfPresent(id, (key, current) -> current == entry && --current.users == 0 ? null : current);
+    }
+
+    private long getThreadId() {
+        return Thread.currentThread().getId();
+    }
+
+    private static final class Transaction {
+        private final long timestamp = System.nanoTime();
+        private final long threadId = Thread.currentThread().getId();
+        private volatile boolean wounded;
+        private volatile Entry waitingOn;
+        private boolean aborted;
+        private int holds;
+
+        private boolean isOlderThan(Transaction other) {
+            long difference = timestamp - other.timestamp;
+            return difference < 0 || difference == 0 && threadId < other.threadId;
+        }
+    }
+
+    private static final class Entry {
+        private final ReentrantLock guard = new ReentrantLock();
+        private final Condition released = guard.newCondition();
+        private Transaction holder;
+        private int holds;
+        private int users;
+    }
+}
@@ -0,0 +1,48 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+public final class TokenEntityLocker<ID> {
+    private final EntityLocker<ID> locker;
+
+    public TokenEntityLocker(OwnedEntityLocker<ID> locker) {
+        this(locker, UnaryOperator.identity());
+    }
+
+    public TokenEntityLocker(OwnedEntityLocker<ID> locker, UnaryOperator<EntityLocker<ID>> decorator) {
+        this.locker = decorator.apply(locker);
+    }
+
+    public LockOwner lock(ID id) {
+        LockOwner owner = LockOwner.newOwner();
+        lock(id, owner);
+        return owner;
+    }
+
+    @SuppressWarnings("try")
+    public void lock(ID id, LockOwner owner) {
+        try (LockOwner.Binding ignored = owner.bind()) {
+            locker.lock(id);
+        }
+    }
+
+    public LockOwner tryLock(ID id, long timeout, TimeUnit unit) throws InterruptedException {
+        LockOwner owner = LockOwner.newOwner();
+        return tryLock(id, owner, timeout, unit) ? owner : null;
+    }
+
+    @SuppressWarnings("try")
+    public boolean tryLock(ID id, LockOwner owner, long timeout, TimeUnit unit) throws InterruptedException {
+        try (LockOwner.Binding ignored = owner.bind()) {
+            return locker.tryLock(id, timeout, unit);
+        }
+    }
+
+    @SuppressWarnings("try")
+    public void unlock(ID id, LockOwner owner) {
+        try (LockOwner.Binding ignored = owner.bind()) {
+            locker.unlock(id);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.locker;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public interface VictimSelectionPolicy {
+    Comparator<DeadlockCandidate> YOUNGEST_FIRST = Comparator.comparingLong(DeadlockCandidate::getWaitingSince).reversed();
+
+    VictimSelectionPolicy YOUNGEST = candidates -> Collections.min(candidates, YOUNGEST_FIRST);
+
+    VictimSelectionPolicy FEWEST_LOCKS = candidates -> Collections.min(candidates,
+            Comparator.comparingInt(DeadlockCandidate::getLocksHeld).thenComparing(YOUNGEST_FIRST));
+
+    VictimSelectionPolicy LOWEST_PRIORITY = candidates -> Collections.min(candidates,
+            Comparator.comparingInt(DeadlockCandidate::getPriority).thenComparing(YOUNGEST_FIRST));
+
+    DeadlockCandidate selectVictim(List<DeadlockCandidate> candidates);
+}
@@ -0,0 +1,254 @@
+package org.locker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class WaitForGraph<ID> {
+    private final Map<ID, Resource> resourceId2resourceMap = new ConcurrentHashMap<>();
+    private final Map<LockOwner, PendingResource<ID>> owner2PendingResourceMap = new ConcurrentHashMap<>();
+    private final ReentrantLock detectionLock = new ReentrantLock();
+
+    Resource addOwner(ID id, LockOwner owner, boolean shared) {
+        return resourceId2resourceMap.compute(id, (resourceId, resource) -> {
+            if (resource == null) {
+                resource = new Resource();
+            }
+            resource.addOwner(owner, shared);
+            return resource;
+        });
+    }
+
+    void addResource(ID id) {
+        resourceId2resourceMap.putIfAbsent(id, new Resource());
+    }
+
+    void removeOwner(ID id, LockOwner owner, boolean shared) {
+        resourceId2resourceMap.computeIfPresent(id, (resourceId, resource) -> resource.removeOwner(owner, shared) ? null : resource);
+    }
+
+    void removeOwner(ID id, Resource heldResource, LockOwner owner, boolean shared) {
+        resourceId2resourceMap.computeIfPresent(id, (resourceId, resource) -> {
+            if (resource != heldResource) {
+                return resource;
+            }
+            return resource.removeOwner(owner, shared) ? null : resource;
+        });
+    }
+
+    void addPendingResource(ID id, LockOwner owner, boolean shared) {
+        owner2PendingResourceMap.compute(owner, (key, pendingResource) -> new PendingResource<>(id, shared, pendingResource));
+    }
+
+    boolean addPendingResourceIfNoDeadlock(ID id, LockOwner owner, boolean shared) {
+        detectionLock.lock();
+        try {
+            addPendingResource(id, owner, shared);
+            Resource resource = resourceId2resourceMap.get(id);
+            if (resource != null && hasNextPendingResource(id, resource, shared, owner, new HashSet<>())) {
+                removePendingResource(owner, id);
+                return false;
+            }
+            return true;
+        } finally {
+            detectionLock.unlock();
+        }
+    }
+
+    void removePendingResource(LockOwner owner) {
+        owner2PendingResourceMap.remove(owner);
+    }
+
+    void removePendingResource(LockOwner owner, ID id) {
+        owner2PendingResourceMap.computeIfPresent(owner, (key, pendingResource) -> pendingResource.remove(id));
+    }
+
+    boolean isHeldByOther(ID id, LockOwner owner, boolean shared) {
+        Resource resource = resourceId2resourceMap.get(id);
+        return resource != null && resource.hasBlockingOwnerOtherThan(owner, shared);
+    }
+
+    boolean isHeldShared(ID id, LockOwner owner) {
+        Resource resource = resourceId2resourceMap.get(id);
+        return resource != null && resource.sharedOwners.containsKey(owner);
+    }
+
+    boolean isHeldExclusively(ID id, LockOwner owner) {
+        Resource resource = resourceId2resourceMap.get(id);
+        return resource != null && resource.exclusiveOwners.containsKey(owner);
+    }
+
+    boolean hasDeadlock(ID id, boolean shared, LockOwner owner) {
+        Resource resource = Objects.requireNonNull(resourceId2resourceMap.get(id), "Unknown resource " + id);
+        detectionLock.lock();
+        try {
+            return hasNextPendingResource(id, resource, shared, owner, new HashSet<>());
+        } finally {
+            detectionLock.unlock();
+        }
+    }
+
+    List<List<LockOwner>> findDeadlockedOwners() {
+        Map<LockOwner, List<LockOwner>> waitsFor = new HashMap<>();
+        owner2PendingResourceMap.forEach((owner, pendingResources) -> {
+            for (PendingResource<ID> pendingResource = pendingResources; pendingResource != null; pendingResource = pendingResource.next) {
+                Resource resource = resourceId2resourceMap.get(pendingResource.id);
+                if (resource == null) {
+                    continue;
+                }
+                for (LockOwner blockingOwner : resource.getBlockingOwners(pendingResource.shared)) {
+                    if (blockingOwner != owner) {
+                        waitsFor.computeIfAbsent(owner, key -> new ArrayList<>()).add(blockingOwner);
+                    }
+                }
+            }
+        });
+        return new StronglyConnectedComponents(waitsFor).find();
+    }
+
+    int getHeldResourcesNumber(LockOwner owner) {
+        int number = 0;
+        for (Resource resource : resourceId2resourceMap.values()) {
+            if (resource.exclusiveOwners.containsKey(owner) || resource.sharedOwners.containsKey(owner)) {
+                number++;
+            }
+        }
+        return number;
+    }
+
+    private boolean hasNextPendingResource(ID neededResourceId, Resource neededResource, boolean shared, LockOwner owner, Set<ID> visitedResources) {
+        if (visitedResources.contains(neededResourceId)) {
+            return neededResource.hasBlockingOwnerOtherThan(owner, shared);
+        }
+        visitedResources.add(neededResourceId);
+
+        for (LockOwner neededResourceOwner : neededResource.getBlockingOwners(shared)) {
+            for (PendingResource<ID> pendingResource = owner2PendingResourceMap.get(neededResourceOwner);
+                 pendingResource != null; pendingResource = pendingResource.next) {
+                Resource resource = resourceId2resourceMap.get(pendingResource.id);
+                if (resource != null
+                        && hasNextPendingResource(pendingResource.id, resource, pendingResource.shared, owner, visitedResources)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static final class Resource {
+        private final Map<LockOwner, Integer> exclusiveOwners = new ConcurrentHashMap<>(2);
+        private final Map<LockOwner, Integer> sharedOwners = new ConcurrentHashMap<>(2);
+
+        private void addOwner(LockOwner owner, boolean shared) {
+            getOwners(shared).merge(owner, 1, Integer::sum);
+        }
+
+        private boolean removeOwner(LockOwner owner, boolean shared) {
+            getOwners(shared).computeIfPresent(owner, (key, holds) -> holds == 1 ? null : holds - 1);
+            return exclusiveOwners.isEmpty() && sharedOwners.isEmpty();
+        }
+
+        private Set<LockOwner> getBlockingOwners(boolean shared) {
+            if (shared) {
+                return exclusiveOwners.keySet();
+            }
+            if (sharedOwners.isEmpty()) {
+                return exclusiveOwners.keySet();
+            }
+            Set<LockOwner> owners = new HashSet<>(exclusiveOwners.keySet());
+            owners.addAll(sharedOwners.keySet());
+            return owners;
+        }
+
+        private boolean hasBlockingOwnerOtherThan(LockOwner owner, boolean shared) {
+            for (LockOwner blockingOwner : getBlockingOwners(shared)) {
+                if (blockingOwner != owner) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Map<LockOwner, Integer> getOwners(boolean shared) {
+            return shared ? sharedOwners : exclusiveOwners;
+        }
+    }
+
+    private static final class StronglyConnectedComponents {
+        private final Map<LockOwner, List<LockOwner>> waitsFor;
+        private final Map<LockOwner, Integer> indexes = new HashMap<>();
+        private final Map<LockOwner, Integer> lowLinks = new HashMap<>();
+        private final Deque<LockOwner> stack = new ArrayDeque<>();
+        private final Set<LockOwner> onStack = new HashSet<>();
+        private final List<List<LockOwner>> components = new ArrayList<>();
+
+        private StronglyConnectedComponents(Map<LockOwner, List<LockOwner>> waitsFor) {
+            this.waitsFor = waitsFor;
+        }
+
+        private List<List<LockOwner>> find() {
+            for (LockOwner owner : waitsFor.keySet()) {
+                if (!indexes.containsKey(owner)) {
+                    visit(owner);
+                }
+            }
+            return components;
+        }
+
+        private void visit(LockOwner owner) {
+            int index = indexes.size();
+            indexes.put(owner, index);
+            lowLinks.put(owner, index);
+            stack.push(owner);
+            onStack.add(owner);
+            for (LockOwner next : waitsFor.getOrDefault(owner, List.of())) {
+                if (!indexes.containsKey(next)) {
+                    visit(next);
+                    lowLinks.put(owner, Math.min(lowLinks.get(owner), lowLinks.get(next)));
+                } else if (onStack.contains(next)) {
+                    lowLinks.put(owner, Math.min(lowLinks.get(owner), indexes.get(next)));
+                }
+            }
+            if (lowLinks.get(owner) == index) {
+                List<LockOwner> component = new ArrayList<>();
+                LockOwner member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != owner);
+                if (component.size() > 1) {
+                    components.add(component);
+                }
+            }
+        }
+    }
+
+    private static class PendingResource<ID> {
+        private final ID id;
+        private final boolean shared;
+        private final PendingResource<ID> next;
+
+        private PendingResource(ID id, boolean shared, PendingResource<ID> next) {
+            this.id = id;
+            this.shared = shared;
+            this.next = next;
+        }
+
+        private PendingResource<ID> remove(ID id) {
+            if (this.id.equals(id)) {
+                return next;
+            }
+            PendingResource<ID> rest = next == null ? null : next.remove(id);
+            return rest == next ? this : new PendingResource<>(this.id, shared, rest);
+        }
+    }
+}
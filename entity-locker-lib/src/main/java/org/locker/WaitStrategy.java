@@ -0,0 +1,46 @@
+package org.locker;
+
+import java.util.concurrent.TimeUnit;
+
+public final class WaitStrategy {
+    static final int UNBOUNDED_BYPASSES = Integer.MAX_VALUE;
+    private static final WaitStrategy UNFAIR = new WaitStrategy(UNBOUNDED_BYPASSES, 0);
+    private static final WaitStrategy FAIR = new WaitStrategy(0, 0);
+    private final int maxBypasses;
+    private final long maxSpinNanos;
+
+    private WaitStrategy(int maxBypasses, long maxSpinNanos) {
+        this.maxBypasses = maxBypasses;
+        this.maxSpinNanos = maxSpinNanos;
+    }
+
+    public static WaitStrategy unfair() {
+        return UNFAIR;
+    }
+
+    public static WaitStrategy fair() {
+        return FAIR;
+    }
+
+    public static WaitStrategy bypassLimited(int maxBypasses) {
+        if (maxBypasses < 0) {
+            throw new IllegalArgumentException("Max bypasses must not be negative: " + maxBypasses);
+        }
+        return new WaitStrategy(maxBypasses, 0);
+    }
+
+    public WaitStrategy withAdaptiveSpin(long maxSpin, TimeUnit unit) {
+        if (maxSpin < 0) {
+            throw new IllegalArgumentException("Max spin must not be negative: " + maxSpin);
+        }
+        return new WaitStrategy(maxBypasses, unit.toNanos(maxSpin));
+    }
+
+    int getMaxBypasses() {
+        return maxBypasses;
+    }
+
+    long getMaxSpinNanos() {
+        return maxSpinNanos;
+    }
+}
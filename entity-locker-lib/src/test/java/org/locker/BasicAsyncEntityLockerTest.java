@@ -0,0 +1,153 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BasicAsyncEntityLockerTest {
+    private BasicAsyncEntityLocker<Integer> locker;
+    private volatile int counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new BasicAsyncEntityLocker<>();
+    }
+
+    @Test
+    void lockedAndUnlocked() {
+        CompletableFuture<LockHandle> future = locker.lockAsync(1).toCompletableFuture();
+        assertTrue(future.isDone());
+        assertEquals(1, locker.getLocksNumber());
+        future.join().unlock();
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void waitersAreGrantedInFifoOrder() {
+        List<Integer> order = new ArrayList<>();
+        LockHandle handle = locker.lockAsync(1).toCompletableFuture().join();
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int waiter = i;
+            waiters.add(locker.lockAsync(1).thenAccept(next -> {
+                order.add(waiter);
+                next.unlock();
+            }).toCompletableFuture());
+        }
+        assertEquals(5, locker.getWaitersNumber(1));
+        assertTrue(order.isEmpty());
+
+        handle.unlock();
+
+        CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).join();
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void timedOut() {
+        LockHandle handle = locker.lockAsync(1).toCompletableFuture().join();
+        CompletableFuture<LockHandle> future = locker.lockAsync(1, 50, MILLISECONDS).toCompletableFuture();
+
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertTrue(exception.getCause() instanceof TimeoutException);
+
+        handle.unlock();
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void cancelled() {
+        LockHandle handle = locker.lockAsync(1).toCompletableFuture().join();
+        CompletableFuture<LockHandle> cancelled = locker.lockAsync(1).toCompletableFuture();
+        CompletableFuture<LockHandle> next = locker.lockAsync(1).toCompletableFuture();
+
+        assertTrue(cancelled.cancel(false));
+        assertThrows(CancellationException.class, cancelled::join);
+        assertEquals(1, locker.getWaitersNumber(1));
+
+        handle.unlock();
+        assertTrue(next.isDone());
+        next.join().unlock();
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void closedByTryWithResources() {
+        CompletableFuture<LockHandle> next;
+        try (LockHandle ignored = locker.lockAsync(1).toCompletableFuture().join()) {
+            next = locker.lockAsync(1).toCompletableFuture();
+            assertFalse(next.isDone());
+        }
+        assertTrue(next.isDone());
+        next.join().unlock();
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void unlockedTwice() {
+        LockHandle handle = locker.lockAsync(1).toCompletableFuture().join();
+        handle.unlock();
+        assertThrows(IllegalMonitorStateException.class, handle::unlock);
+    }
+
+    @Test
+    void oneThreadWaitsOnThousandsOfLocks() {
+        int ids = 1000;
+        int requests = 20000;
+        List<LockHandle> handles = new ArrayList<>();
+        for (int id = 0; id < ids; id++) {
+            handles.add(locker.lockAsync(id).toCompletableFuture().join());
+        }
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            waiters.add(locker.lockAsync(i % ids).thenAccept(handle -> {
+                counter++;
+                handle.unlock();
+            }).toCompletableFuture());
+        }
+        assertEquals(0, counter);
+
+        handles.forEach(LockHandle::unlock);
+
+        CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).join();
+        assertEquals(requests, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 10000;
+        CompletableFuture<Void> thread1 = runAsync(() -> doIncrements(endExclusive));
+        CompletableFuture<Void> thread2 = runAsync(() -> doIncrements(endExclusive));
+        CompletableFuture<Void> thread3 = runAsync(() -> doIncrements(endExclusive));
+
+        CompletableFuture.allOf(thread1, thread2, thread3).join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    private void doIncrements(int endExclusive) {
+        for (int i = 0; i < endExclusive; i++) {
+            try (LockHandle ignored = locker.lockAsync(1).toCompletableFuture().join()) {
+                counter++;
+            }
+        }
+    }
+}
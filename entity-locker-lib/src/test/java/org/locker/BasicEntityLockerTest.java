@@ -14,9 +14,11 @@ import static java.lang.Math.random;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BasicEntityLockerTest {
@@ -54,6 +56,91 @@ class BasicEntityLockerTest {
         assertEquals(0, locker.getLocksNumber());
     }
 
+    @Test
+    @SneakyThrows
+    void syncWithWaitStrategies() {
+        WaitStrategy[] strategies = {
+                WaitStrategy.fair(),
+                WaitStrategy.bypassLimited(2).withAdaptiveSpin(50, MICROSECONDS),
+                WaitStrategy.unfair().withAdaptiveSpin(50, MICROSECONDS)
+        };
+        int endExclusive = 20000;
+        for (WaitStrategy strategy : strategies) {
+            counter = 0;
+            locker = new BasicEntityLocker<>(strategy);
+            Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+            thread1.start();
+            Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+            thread2.start();
+            thread1.join();
+            thread2.join();
+            assertEquals(endExclusive * 2, counter);
+            assertEquals(0, locker.getLocksNumber());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void fairStrategy_queuedWaiterNotBypassed() {
+        assertEquals(0, countBypasses(WaitStrategy.fair(), 10));
+    }
+
+    @Test
+    @SneakyThrows
+    void bypassLimitedStrategy_bypassesBounded() {
+        assertTrue(countBypasses(WaitStrategy.bypassLimited(2), 10) <= 2);
+    }
+
+    @Test
+    void negativeWaitStrategyLimits_exception() {
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.bypassLimited(-1));
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.fair().withAdaptiveSpin(-1, MICROSECONDS));
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByOtherThread_negativeTimeoutNotBlocked() {
+        lock(1);
+        try {
+            assertFalse(supplyAsync(() -> tryLock(1, -1)).get(10, TimeUnit.SECONDS));
+            assertEquals(1, locker.getLocksNumber());
+        } finally {
+            unlock(1);
+        }
+    }
+
+    @SneakyThrows
+    private int countBypasses(WaitStrategy strategy, int attempts) {
+        locker = new BasicEntityLocker<>(strategy);
+        int id = 1;
+        lock(id);
+        CompletableFuture<Void> waiter = runAsync(() -> {
+            lock(id);
+            try {
+                await(countDownLatchStopper);
+            } finally {
+                unlock(id);
+            }
+        });
+        while (locker.getQueueLength(id) == 0) {
+            Thread.onSpinWait();
+        }
+        int bypasses = 0;
+        for (int i = 0; i < attempts; i++) {
+            unlock(id);
+            if (!tryLock(id, 0, MILLISECONDS)) {
+                break;
+            }
+            bypasses++;
+        }
+        if (bypasses == attempts) {
+            unlock(id);
+        }
+        countDownLatchStopper.countDown();
+        waiter.join();
+        return bypasses;
+    }
+
     @Test
     void reentrantLocking() {
         lock(1);
@@ -123,6 +210,51 @@ class BasicEntityLockerTest {
         stopperLock.unlock();
     }
 
+    @Test
+    @SneakyThrows
+    void timeout_lockReleased() {
+        stopperLock.lock();
+
+        CompletableFuture<Void> holder = runAsync(() -> {
+            lock(1);
+            try {
+                countDownLatchStopper.countDown();
+                stopperLock.lock();
+            } finally {
+                unlock(1);
+            }
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(1, 10, MILLISECONDS)).join());
+        assertEquals(1, locker.getLocksNumber());
+
+        stopperLock.unlock();
+        holder.join();
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByHandle() {
+        try (LockHandle ignored = locker.acquire(1)) {
+            try (LockHandle reentered = locker.tryAcquire(1, 10, MILLISECONDS)) {
+                assertTrue(reentered != null);
+                counter++;
+            }
+            assertFalse(supplyAsync(() -> tryAcquire(1, 10, MILLISECONDS) != null).join());
+            assertEquals(1, locker.getLocksNumber());
+        }
+
+        assertEquals(1, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+
     @SneakyThrows
     private void doIncrements(int endExclusive) {
         int i = endExclusive;
@@ -295,4 +427,9 @@ class BasicEntityLockerTest {
         return locker.tryLock(id, timeout, unit);
     }
 
+
+    @SneakyThrows
+    private LockHandle tryAcquire(int id, long timeout, TimeUnit unit) {
+        return locker.tryAcquire(id, timeout, unit);
+    }
 }
@@ -0,0 +1,159 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BasicLongEntityLockerTest {
+    private BasicLongEntityLocker locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private Lock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new BasicLongEntityLocker(2);
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 100000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void reentrantLockingOverOtherId() {
+        locker.lock(1L);
+        try {
+            locker.lock(Long.MIN_VALUE);
+            try {
+                locker.lock(1L);
+                try {
+                    counter++;
+                } finally {
+                    locker.unlock(1L);
+                }
+            } finally {
+                locker.unlock(Long.MIN_VALUE);
+            }
+        } finally {
+            locker.unlock(1L);
+        }
+        assertEquals(1, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void manyIdsHeldAndReleasedInRandomOrder() {
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            ids.add(random.nextLong());
+            ids.add((long) i);
+        }
+        for (long id : ids) {
+            locker.lock(id);
+        }
+        assertEquals(ids.size(), locker.getLocksNumber());
+
+        Collections.shuffle(ids, random);
+        for (int i = 0; i < ids.size(); i++) {
+            locker.unlock(ids.get(i));
+            assertEquals(ids.size() - i - 1, locker.getLocksNumber());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void entityLocked_timeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            locker.lock(1L);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(1L, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(2L, timeout);
+            } finally {
+                locker.unlock(2L);
+            }
+        }).join());
+        assertEquals(1, locker.getLocksNumber());
+
+        stopperLock.unlock();
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            long id = (long) (random() * 2);
+            int numberOfLocks = (int) (random() * 3 + 1);
+            for (int j = 0; j < numberOfLocks; j++) {
+                int lockType = (int) (random() * 2);
+                if (lockType == 0) {
+                    locker.lock(id);
+                } else {
+                    locker.tryLock(id, 1, HOURS);
+                }
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                for (int j = 0; j < numberOfLocks; j++) {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private boolean tryLock(long id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+}
@@ -0,0 +1,180 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BasicReadWriteEntityLockerTest {
+    private BasicReadWriteEntityLocker<Integer> locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private Lock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new BasicReadWriteEntityLocker<>();
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 100000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void reentrantLockingAndDowngrade() {
+        locker.lock(1);
+        try {
+            locker.lockShared(1);
+            try {
+                locker.lock(1);
+                try {
+                    counter++;
+                } finally {
+                    locker.unlock(1);
+                }
+            } finally {
+                locker.unlockShared(1);
+            }
+        } finally {
+            locker.unlock(1);
+        }
+        assertEquals(1, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void sharedLocked_sharedNoTimeout_exclusiveTimeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            locker.lockShared(1);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLockShared(1, timeout);
+            } finally {
+                locker.unlockShared(1);
+            }
+        }).join());
+        assertFalse(supplyAsync(() -> tryLock(1, timeout)).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void exclusiveLocked_sharedTimeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            locker.lock(1);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLockShared(1, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLockShared(2, timeout);
+            } finally {
+                locker.unlockShared(2);
+            }
+        }).join());
+        assertEquals(1, locker.getLocksNumber());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void interruptedWaiters_entryRemoved() {
+        locker.lock(1);
+        try {
+            runAsync(() -> {
+                Thread.currentThread().interrupt();
+                assertThrows(InterruptedException.class, () -> locker.tryLock(1, 1, HOURS));
+                Thread.currentThread().interrupt();
+                assertThrows(InterruptedException.class, () -> locker.tryLockShared(1, 1, HOURS));
+            }).join();
+        } finally {
+            locker.unlock(1);
+        }
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int id = (int) (random() * 2);
+            locker.lockShared(id);
+            locker.unlockShared(id);
+            int lockType = (int) (random() * 2);
+            if (lockType == 0) {
+                locker.lock(id);
+            } else {
+                locker.tryLock(id, 1, HOURS);
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                locker.unlock(id);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLockShared(int id, int timeout) {
+        return locker.tryLockShared(id, timeout, MILLISECONDS);
+    }
+}
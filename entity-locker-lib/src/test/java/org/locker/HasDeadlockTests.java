@@ -22,8 +22,8 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1_deadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addResource(2, thread2);
@@ -36,8 +36,8 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_and_t2_pending_r1_noDeadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addPendingResource(1, thread2);
@@ -50,7 +50,7 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_yet_pending_r1_noDeadLock() {
-        long thread1 = Thread.currentThread().getId();
+        LockOwner thread1 = LockOwner.current();
 
         locker.addResource(1, thread1);
         locker.addPendingResource(1, thread1);
@@ -60,8 +60,8 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_noDeadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addResource(2, thread2);
@@ -73,8 +73,8 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_and_t2_has_r2_noDeadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addResource(2, thread2);
@@ -85,7 +85,7 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_noDeadLock() {
-        long thread1 = -1l;
+        LockOwner thread1 = new LockOwner();
 
         locker.addResource(1, thread1);
 
@@ -101,9 +101,9 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r3_and_t3_has_r3_yet_pending_r1_deadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
-        long thread3 = -3l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
+        LockOwner thread3 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addResource(2, thread2);
@@ -119,9 +119,9 @@ class HasDeadlockTests {
 
     @Test
     public void hasDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r3_and_t3_has_r3_noDeadLock() {
-        long thread1 = -1l;
-        long thread2 = -2l;
-        long thread3 = -3l;
+        LockOwner thread1 = new LockOwner();
+        LockOwner thread2 = new LockOwner();
+        LockOwner thread3 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addResource(2, thread2);
@@ -136,8 +136,8 @@ class HasDeadlockTests {
 
     @Test
     public void test() {
-        long thread1 = Thread.currentThread().getId();
-        long thread2 = -2l;
+        LockOwner thread1 = LockOwner.current();
+        LockOwner thread2 = new LockOwner();
 
         locker.addResource(1, thread1);
         locker.addPendingResource(1, thread1);
@@ -0,0 +1,330 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.locker.LockMode.EXCLUSIVE;
+import static org.locker.LockMode.INTENTION_EXCLUSIVE;
+import static org.locker.LockMode.INTENTION_SHARED;
+import static org.locker.LockMode.SHARED;
+import static org.locker.LockMode.SHARED_INTENTION_EXCLUSIVE;
+
+class HierarchicalEntityLockerTest {
+    private static final int TIMEOUT = 5;
+    private HierarchicalEntityLocker<Integer, Integer> locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private Lock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new HierarchicalEntityLocker<>(new BasicEntityLocker<>(), id -> id / 10);
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    void lockModes_compatibilityIsSymmetric() {
+        for (LockMode mode : LockMode.values()) {
+            for (LockMode other : LockMode.values()) {
+                assertEquals(mode.isCompatibleWith(other), other.isCompatibleWith(mode));
+            }
+        }
+        assertTrue(INTENTION_SHARED.isCompatibleWith(SHARED_INTENTION_EXCLUSIVE));
+        assertTrue(INTENTION_EXCLUSIVE.isCompatibleWith(INTENTION_EXCLUSIVE));
+        assertFalse(INTENTION_EXCLUSIVE.isCompatibleWith(SHARED));
+        assertFalse(SHARED.isCompatibleWith(SHARED_INTENTION_EXCLUSIVE));
+        assertFalse(INTENTION_SHARED.isCompatibleWith(EXCLUSIVE));
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionLocked_onlyPartitionEntitiesTimeout() {
+        stopperLock.lock();
+
+        runAsync(() -> {
+            lockPartition(1, EXCLUSIVE);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(10)).join());
+        assertFalse(supplyAsync(() -> tryLock(19)).join());
+        assertFalse(supplyAsync(() -> tryLockPartition(1, INTENTION_SHARED)).join());
+        assertFalse(supplyAsync(() -> tryLock(EXCLUSIVE)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(20);
+            } finally {
+                locker.unlock(20);
+            }
+        }).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLockPartition(2, EXCLUSIVE);
+            } finally {
+                locker.unlockPartition(2, EXCLUSIVE);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionShared_sharedGrantedAndEntitiesTimeout() {
+        stopperLock.lock();
+
+        runAsync(() -> {
+            lockPartition(1, SHARED);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(10)).join());
+        assertFalse(supplyAsync(() -> tryLockPartition(1, SHARED_INTENTION_EXCLUSIVE)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLockPartition(1, SHARED);
+            } finally {
+                locker.unlockPartition(1, SHARED);
+            }
+        }).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(SHARED);
+            } finally {
+                locker.unlock(SHARED);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void entityLocked_partitionAndGlobalTimeout() {
+        stopperLock.lock();
+
+        runAsync(() -> {
+            locker.lock(10);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(10)).join());
+        assertFalse(supplyAsync(() -> tryLockPartition(1, SHARED)).join());
+        assertFalse(supplyAsync(() -> tryLock(SHARED)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(11);
+            } finally {
+                locker.unlock(11);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void globallyLocked_allTimeout() {
+        stopperLock.lock();
+
+        runAsync(() -> {
+            lock(EXCLUSIVE);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(10)).join());
+        assertFalse(supplyAsync(() -> tryLockPartition(2, INTENTION_SHARED)).join());
+        assertFalse(supplyAsync(() -> tryLock(INTENTION_SHARED)).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    void partitionLocked_entityLockedByPartitionOwner() {
+        lockPartition(1, EXCLUSIVE);
+        try {
+            assertTrue(tryLock(10));
+            locker.unlock(10);
+            assertTrue(tryLockPartition(1, SHARED));
+            locker.unlockPartition(1, SHARED);
+        } finally {
+            locker.unlockPartition(1, EXCLUSIVE);
+        }
+        assertEquals(0, locker.getPartitionsNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void pendingPartitionLock_newEntityLocksQueued() {
+        CountDownLatch entityLocked = new CountDownLatch(1);
+
+        CompletableFuture<Void> entityFuture = runAsync(() -> {
+            locker.lock(10);
+            try {
+                entityLocked.countDown();
+                while (locker.getWaitersNumber(1) == 0) {
+                    Thread.onSpinWait();
+                }
+                assertFalse(supplyAsync(() -> tryLock(11)).join());
+            } finally {
+                locker.unlock(10);
+            }
+        });
+
+        entityLocked.await();
+        CompletableFuture<Boolean> partitionFuture = supplyAsync(() -> {
+            try {
+                return tryLockPartition(1, EXCLUSIVE, 1, HOURS);
+            } finally {
+                locker.unlockPartition(1, EXCLUSIVE);
+            }
+        });
+        entityFuture.join();
+        assertTrue(partitionFuture.get(10, SECONDS));
+        assertEquals(0, locker.getPartitionsNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void pendingGlobalLock_newOwnersQueuedAndHoldersNotBlocked() {
+        locker.lock(10);
+        CompletableFuture<Boolean> globalFuture = supplyAsync(() -> {
+            try {
+                return tryLock(EXCLUSIVE, 1, HOURS);
+            } finally {
+                locker.unlock(EXCLUSIVE);
+            }
+        });
+        MILLISECONDS.sleep(50);
+        assertFalse(globalFuture.isDone());
+        assertFalse(supplyAsync(() -> tryLock(20)).join());
+
+        assertTrue(tryLock(20));
+        locker.unlock(20);
+        locker.unlock(10);
+        assertTrue(globalFuture.get(10, SECONDS));
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(20);
+            } finally {
+                locker.unlock(20);
+            }
+        }).join());
+        assertEquals(0, locker.getPartitionsNumber());
+    }
+
+    @Test
+    void notLocked_unlockFailed() {
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlockPartition(1, SHARED));
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(SHARED));
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 10000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getPartitionsNumber());
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int lockType = (int) (random() * 3);
+            if (lockType == 0) {
+                locker.lock(10);
+            } else if (lockType == 1) {
+                locker.lockPartition(1, EXCLUSIVE);
+            } else {
+                locker.lock(EXCLUSIVE);
+            }
+            try {
+                counter++;
+            } finally {
+                if (lockType == 0) {
+                    locker.unlock(10);
+                } else if (lockType == 1) {
+                    locker.unlockPartition(1, EXCLUSIVE);
+                } else {
+                    locker.unlock(EXCLUSIVE);
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private void lockPartition(int partition, LockMode mode) {
+        locker.lockPartition(partition, mode);
+    }
+
+    @SneakyThrows
+    private void lock(LockMode mode) {
+        locker.lock(mode);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id) {
+        return locker.tryLock(id, TIMEOUT, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(LockMode mode) {
+        return tryLock(mode, TIMEOUT, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(LockMode mode, long timeout, TimeUnit unit) {
+        return locker.tryLock(mode, timeout, unit);
+    }
+
+    @SneakyThrows
+    private boolean tryLockPartition(int partition, LockMode mode) {
+        return tryLockPartition(partition, mode, TIMEOUT, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLockPartition(int partition, LockMode mode, long timeout, TimeUnit unit) {
+        return locker.tryLockPartition(partition, mode, timeout, unit);
+    }
+}
@@ -0,0 +1,169 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaseEntityLockerTest {
+    private LeaseEntityLocker<Integer> locker;
+    private Map<Integer, Thread> expired;
+    private volatile int counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        expired = new ConcurrentHashMap<>();
+        locker = new LeaseEntityLocker<>(1, 1, MILLISECONDS, 64, expired::put);
+    }
+
+    @AfterEach
+    void tearDown() {
+        locker.close();
+    }
+
+    @Test
+    void invalidArguments_exception() {
+        assertThrows(IllegalArgumentException.class, () -> new LeaseEntityLocker<>(0, SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new LeaseEntityLocker<>(1, 0, SECONDS, 64, (id, owner) -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new LeaseEntityLocker<>(1, 1, SECONDS, 0, (id, owner) -> {
+        }));
+    }
+
+    @Test
+    @SneakyThrows
+    void abandonedLease_expiredAndReported() {
+        Thread owner = supplyAsync(() -> {
+            locker.lock(1, 20, MILLISECONDS);
+            return Thread.currentThread();
+        }).join();
+
+        assertTrue(locker.tryLock(1, 10, SECONDS, 1, HOURS));
+        assertEquals(1, locker.getExpiredLeases());
+        assertEquals(owner, expired.get(1));
+        locker.unlock(1);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void expiredLease_unlockFailed() {
+        locker.lock(1, 5, MILLISECONDS);
+        locker.lock(1);
+        while (locker.getExpiredLeases() == 0) {
+            Thread.sleep(1);
+        }
+        assertThrows(LeaseExpiredException.class, () -> locker.renew(1, 1, SECONDS));
+        assertThrows(LeaseExpiredException.class, () -> locker.unlock(1));
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1));
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(1)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void renewedLease_notExpired() {
+        locker.lock(1, 30, MILLISECONDS);
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(10);
+            assertTrue(locker.renew(1, 30, MILLISECONDS));
+        }
+        assertFalse(supplyAsync(() -> tryLockAndUnlock(1)).join());
+        locker.unlock(1);
+        assertEquals(0, locker.getExpiredLeases());
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void shortenedLease_expiredEarly() {
+        locker.lock(1, 1, HOURS);
+        locker.renew(1, 5, MILLISECONDS);
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(1, 10_000)).join());
+        assertEquals(1, locker.getExpiredLeases());
+    }
+
+    @Test
+    void notLocked_unlockFailed() {
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1));
+        locker.lock(1, 1, HOURS);
+        runAsync(() -> assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1))).join();
+        locker.unlock(1);
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 10000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+        assertEquals(0, locker.getExpiredLeases());
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int id = (int) (random() * 2);
+            int numberOfLocks = (int) (random() * 3 + 1);
+            for (int j = 0; j < numberOfLocks; j++) {
+                if (random() < 0.5) {
+                    locker.lock(id, 1, HOURS);
+                } else {
+                    locker.tryLock(id, 1, HOURS, 1, HOURS);
+                }
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                for (int j = 0; j < numberOfLocks; j++) {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+
+    private boolean tryLockAndUnlock(int id) {
+        return tryLockAndUnlock(id, 5);
+    }
+
+    @SneakyThrows
+    private boolean tryLockAndUnlock(int id, int timeout) {
+        if (!locker.tryLock(id, timeout, MILLISECONDS, 1, HOURS)) {
+            return false;
+        }
+        locker.unlock(id);
+        return true;
+    }
+}
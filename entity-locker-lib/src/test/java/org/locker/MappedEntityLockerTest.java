@@ -0,0 +1,275 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedEntityLockerTest {
+    private Path file;
+    private MappedEntityLocker<Integer> locker;
+    private MappedEntityLocker<Integer> otherProcess;
+    private volatile int counter;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        counter = 0;
+        file = Files.createTempFile("entity-locker", ".lock");
+        locker = new MappedEntityLocker<>(file, Integer::longValue);
+        otherProcess = new MappedEntityLocker<>(file, Integer::longValue);
+    }
+
+    @AfterEach
+    @SneakyThrows
+    void tearDown() {
+        locker.close();
+        otherProcess.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void invalidArguments_exception() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedEntityLocker<Integer>(file, 0, Integer::longValue, 1, SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new MappedEntityLocker<Integer>(file, 16, Integer::longValue, 0, SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new MappedEntityLocker<Integer>(file, 16, Integer::longValue, 1, SECONDS));
+    }
+
+    @Test
+    @SneakyThrows
+    void syncAcrossProcesses() {
+        int endExclusive = 20000;
+        Thread thread1 = new Thread(() -> doIncrements(locker, endExclusive));
+        thread1.start();
+        Thread thread2 = new Thread(() -> doIncrements(otherProcess, endExclusive));
+        thread2.start();
+        Thread thread3 = new Thread(() -> doIncrements(otherProcess, endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+        assertEquals(0, otherProcess.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByOtherProcess_timeout() {
+        locker.lock(1);
+        locker.lock(1);
+        try {
+            assertFalse(supplyAsync(() -> tryLock(otherProcess, 1, 10)).join());
+            assertFalse(supplyAsync(() -> tryLock(otherProcess, 1, -1)).join());
+            assertTrue(supplyAsync(() -> {
+                boolean locked = tryLock(otherProcess, 2, 10);
+                otherProcess.unlock(2);
+                return locked;
+            }).join());
+        } finally {
+            locker.unlock(1);
+        }
+        assertFalse(supplyAsync(() -> tryLock(otherProcess, 1, 10)).join());
+
+        locker.unlock(1);
+        assertTrue(otherProcess.tryLock(1, 10, SECONDS));
+        otherProcess.unlock(1);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void longHeldByOtherProcess_waiterParked() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        locker.lock(1);
+        CompletableFuture<Long> waiter = supplyAsync(() -> {
+            long started = threads.getCurrentThreadCpuTime();
+            otherProcess.lock(1);
+            otherProcess.unlock(1);
+            return threads.getCurrentThreadCpuTime() - started;
+        });
+        MILLISECONDS.sleep(500);
+        locker.unlock(1);
+
+        long cpuNanos = waiter.get(10, SECONDS);
+        assertTrue(cpuNanos < MILLISECONDS.toNanos(100), "Waiter burned " + cpuNanos + " ns of CPU");
+    }
+
+    @Test
+    @SneakyThrows
+    void closedProcess_locksTakenOver() {
+        locker.lock(1);
+        locker.close();
+
+        assertTrue(otherProcess.tryLock(1, 10, SECONDS));
+        otherProcess.unlock(1);
+    }
+
+    @Test
+    @SneakyThrows
+    void expiredLease_lockTakenOverAndUnlockRejected() {
+        MappedEntityLocker<Integer> stalled = new MappedEntityLocker<>(file, 4096, Integer::longValue, 20, MILLISECONDS);
+        try {
+            stalled.lock(1);
+            stalled.stopRenewal();
+
+            assertTrue(otherProcess.tryLock(1, 10, SECONDS));
+            assertThrows(LeaseExpiredException.class, () -> stalled.unlock(1));
+            assertEquals(0, stalled.getLocksNumber());
+            otherProcess.unlock(1);
+        } finally {
+            stalled.close();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void bucketFull_keysProbedIntoNextBuckets() {
+        Path smallFile = Files.createTempFile("entity-locker", ".lock");
+        MappedEntityLocker<Integer> small = new MappedEntityLocker<>(smallFile, 4, id -> unmix((long) id << 32), 10, SECONDS);
+        MappedEntityLocker<Integer> otherSmall = new MappedEntityLocker<>(smallFile, 4, id -> unmix((long) id << 32), 10, SECONDS);
+        try {
+            for (int id = 1; id <= 10; id++) {
+                assertTrue(small.tryLock(id, 1, SECONDS));
+            }
+            assertFalse(supplyAsync(() -> tryLock(otherSmall, 3, 10)).join());
+            assertFalse(supplyAsync(() -> tryLock(otherSmall, 9, 10)).join());
+            assertTrue(supplyAsync(() -> {
+                boolean locked = tryLock(otherSmall, 11, 10);
+                otherSmall.unlock(11);
+                return locked;
+            }).join());
+
+            for (int id = 11; id <= 28; id++) {
+                assertTrue(small.tryLock(id, 1, SECONDS));
+            }
+            assertThrows(IllegalStateException.class, () -> small.lock(29));
+            assertThrows(IllegalStateException.class, () -> otherSmall.tryLock(29, 1, SECONDS));
+
+            small.unlock(9);
+            assertTrue(otherSmall.tryLock(29, 1, SECONDS));
+            otherSmall.unlock(29);
+            for (int id = 28; id >= 1; id--) {
+                if (id != 9) {
+                    small.unlock(id);
+                }
+            }
+            assertEquals(0, small.getLocksNumber());
+        } finally {
+            small.close();
+            otherSmall.close();
+            Files.deleteIfExists(smallFile);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void sameBucketAndHighBits_locksIndependent() {
+        locker.close();
+        otherProcess.close();
+        locker = new MappedEntityLocker<>(file, id -> unmix(0x12345678_00000000L | (long) id << 16));
+        otherProcess = new MappedEntityLocker<>(file, id -> unmix(0x12345678_00000000L | (long) id << 16));
+        locker.lock(1);
+        try {
+            assertTrue(supplyAsync(() -> {
+                boolean locked = tryLock(locker, 2, 10);
+                locker.unlock(2);
+                return locked;
+            }).join());
+            assertTrue(supplyAsync(() -> {
+                boolean locked = tryLock(otherProcess, 2, 10);
+                otherProcess.unlock(2);
+                return locked;
+            }).join());
+            assertFalse(supplyAsync(() -> tryLock(otherProcess, 1, 10)).join());
+        } finally {
+            locker.unlock(1);
+        }
+    }
+
+    @Test
+    void closed_useRejected() {
+        locker.close();
+        assertThrows(IllegalStateException.class, () -> locker.lock(1));
+        assertThrows(IllegalStateException.class, () -> locker.tryLock(1, 1, SECONDS));
+    }
+
+    @Test
+    void unlockNotLocked_exception() {
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1));
+        locker.lock(1);
+        try {
+            CompletionException e = assertThrows(CompletionException.class, () -> runAsync(() -> locker.unlock(1)).join());
+            assertTrue(e.getCause() instanceof IllegalMonitorStateException);
+        } finally {
+            locker.unlock(1);
+        }
+    }
+
+    private static long unmix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= inverse(0xC4CEB9FE1A85EC53L);
+        hash ^= hash >>> 33;
+        hash *= inverse(0xFF51AFD7ED558CCDL);
+        return hash ^ (hash >>> 33);
+    }
+
+    private static long inverse(long odd) {
+        long inverse = odd;
+        for (int i = 0; i < 5; i++) {
+            inverse *= 2 - odd * inverse;
+        }
+        return inverse;
+    }
+
+    @SneakyThrows
+    private boolean tryLock(MappedEntityLocker<Integer> locker, int id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private void doIncrements(MappedEntityLocker<Integer> locker, int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int id = (int) (random() * 2);
+            int numberOfLocks = (int) (random() * 3 + 1);
+            for (int j = 0; j < numberOfLocks; j++) {
+                if ((int) (random() * 2) == 0) {
+                    locker.lock(id);
+                } else {
+                    locker.tryLock(id, 1, HOURS);
+                }
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                for (int j = 0; j < numberOfLocks; j++) {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+}
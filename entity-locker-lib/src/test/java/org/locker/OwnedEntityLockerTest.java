@@ -0,0 +1,72 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OwnedEntityLockerTest {
+    private OwnedEntityLocker<Integer> locker;
+
+    @BeforeEach
+    void setUp() {
+        locker = new OwnedEntityLocker<>();
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByThread_reentrantAndEntriesRemoved() {
+        locker.lock(1);
+        assertTrue(locker.tryLock(1, 0, MILLISECONDS));
+        assertFalse(supplyAsync(() -> tryLock(1)).join());
+        locker.unlock(1);
+        assertFalse(supplyAsync(() -> tryLock(1)).join());
+        locker.unlock(1);
+        assertEquals(0, locker.getLocksNumber());
+        assertTrue(supplyAsync(() -> tryLock(1)).join());
+        assertEquals(1, locker.getLocksNumber());
+    }
+
+    @Test
+    void lockedByBoundOwner_unlockedOnAnotherThread() {
+        LockOwner owner = LockOwner.newOwner();
+        runAsync(() -> {
+            try (LockOwner.Binding ignored = owner.bind()) {
+                locker.lock(1);
+            }
+        }).join();
+
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1));
+        try (LockOwner.Binding ignored = owner.bind()) {
+            locker.unlock(1);
+        }
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void ownerBoundToAnotherThread_bindFailed() {
+        LockOwner owner = LockOwner.newOwner();
+        try (LockOwner.Binding ignored = owner.bind()) {
+            assertThrows(IllegalStateException.class, () -> {
+                try {
+                    supplyAsync(owner::bind).join();
+                } catch (RuntimeException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+        runAsync(() -> owner.bind().close()).join();
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id) {
+        return locker.tryLock(id, 10, MILLISECONDS);
+    }
+}
@@ -0,0 +1,267 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledEntityLockerTest {
+    private static final int POOL_SIZE = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private PooledEntityLocker<Integer> locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private Lock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new PooledEntityLocker<>(1, POOL_SIZE, true);
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 100000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive, 3));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive, 3));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive, 3));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void syncNonReentrant() {
+        locker = new PooledEntityLocker<>(false);
+        int endExclusive = 100000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive, 1));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive, 1));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive, 1));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void syncManyIdsWhileTableRehashed() {
+        int ids = 200;
+        int increments = 50000;
+        int[] counters = new int[ids];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < increments; i++) {
+                    int id = (int) (random() * ids);
+                    lock(id);
+                    try {
+                        counters[id]++;
+                    } finally {
+                        unlock(id);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int total = 0;
+        for (int counter : counters) {
+            total += counter;
+        }
+        assertEquals(increments * threads.length, total);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void reentrantLockingOverOtherId() {
+        lock(1);
+        try {
+            lock(2);
+            try {
+                lock(1);
+                try {
+                    counter++;
+                } finally {
+                    unlock(1);
+                }
+            } finally {
+                unlock(2);
+            }
+        } finally {
+            unlock(1);
+        }
+        assertEquals(1, counter);
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void nonReentrantLocking_reentryRejected() {
+        locker = new PooledEntityLocker<>(false);
+        lock(1);
+        try {
+            assertThrows(IllegalMonitorStateException.class, () -> lock(1));
+        } finally {
+            unlock(1);
+        }
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    void releasedNodesReusedForNewIds() {
+        for (int id = 0; id < 1000; id++) {
+            lock(id);
+            unlock(id);
+        }
+        assertTrue(locker.getNodesNumber() <= INITIAL_CAPACITY);
+        assertEquals(INITIAL_CAPACITY, locker.getCapacity());
+    }
+
+    @Test
+    void heldNodesGrowTable_releasedNodesShrinkIt() {
+        int heldIds = 1000;
+        for (int id = 0; id < heldIds; id++) {
+            lock(id);
+        }
+        assertEquals(heldIds, locker.getNodesNumber());
+        assertEquals(heldIds, locker.getLocksNumber());
+        assertTrue(locker.getCapacity() > heldIds);
+        for (int id = 0; id < heldIds; id++) {
+            unlock(id);
+        }
+        assertEquals(0, locker.getLocksNumber());
+
+        for (int id = heldIds; id < heldIds * 10; id++) {
+            lock(id);
+            unlock(id);
+        }
+        assertEquals(INITIAL_CAPACITY, locker.getCapacity());
+    }
+
+    @Test
+    void nullTimeUnit_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> locker.tryLock(1, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> locker.tryAcquire(1, 1, null));
+        assertEquals(0, locker.getLocksNumber());
+    }
+
+    @Test
+    @SneakyThrows
+    void entityLocked_timeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            lock(1);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(1, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            int id = 2;
+            try {
+                return tryLock(id, timeout);
+            } finally {
+                unlock(id);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByHandle() {
+        try (LockHandle ignored = locker.acquire(1)) {
+            assertEquals(1, locker.getLocksNumber());
+            assertFalse(supplyAsync(() -> tryLock(1, 5)).join());
+        }
+        assertEquals(0, locker.getLocksNumber());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(1, 5);
+            } finally {
+                unlock(1);
+            }
+        }).join());
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive, int maxNumberOfLocks) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int id = (int) (random() * 2);
+            int numberOfLocks = (int) (random() * maxNumberOfLocks + 1);
+            for (int j = 0; j < numberOfLocks; j++) {
+                int lockType = (int) (random() * 2);
+                if (lockType == 0) {
+                    locker.lock(id);
+                } else {
+                    locker.tryLock(id, 1, HOURS);
+                }
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                for (int j = 0; j < numberOfLocks; j++) {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+
+    private void lock(int id) {
+        locker.lock(id);
+    }
+
+    private void unlock(int id) {
+        locker.unlock(id);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+}
@@ -0,0 +1,286 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteEntityLockerTest {
+    private LockServer server;
+    private RemoteEntityLocker<Integer> client1;
+    private RemoteEntityLocker<Integer> client2;
+    private volatile int counter;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        counter = 0;
+        server = new LockServer(new InetSocketAddress("localhost", 0));
+        client1 = newClient();
+        client2 = newClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client1.close();
+        client2.close();
+        server.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 1000;
+        Thread[] threads = {
+                new Thread(() -> doIncrements(client1, endExclusive)),
+                new Thread(() -> doIncrements(client1, endExclusive)),
+                new Thread(() -> doIncrements(client2, endExclusive)),
+                new Thread(() -> doIncrements(client2, endExclusive))
+        };
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(endExclusive * threads.length, counter);
+        assertTrue(client1.getBatches() <= client1.getRequests());
+    }
+
+    @Test
+    @SneakyThrows
+    void lockedByOtherClient_timeout() {
+        client1.lock(1);
+        try {
+            assertFalse(supplyAsync(() -> tryLock(client2, 1, 20)).join());
+            assertTrue(supplyAsync(() -> tryLock(client1, 2, 20)).join());
+        } finally {
+            client1.unlock(1);
+        }
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(client2, 1)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void reentrantLocking_servedFromLocalLease() {
+        client1.lock(1);
+        long requests = client1.getRequests();
+        assertTrue(client1.tryLock(1, 0, MILLISECONDS));
+        client1.lock(1);
+        assertEquals(requests, client1.getRequests());
+
+        client1.unlock(1);
+        client1.unlock(1);
+        assertFalse(supplyAsync(() -> tryLock(client2, 1, 20)).join());
+        client1.unlock(1);
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(client2, 1)).join());
+        assertThrows(IllegalMonitorStateException.class, () -> client1.unlock(1));
+    }
+
+    @Test
+    public void reproduceDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
+        CompletableFuture<Void> locked1 = new CompletableFuture<>();
+        CompletableFuture<Void> locked2 = new CompletableFuture<>();
+        assertThrows(DeadlockDetectedException.class, () -> {
+            CompletableFuture<Void> future1 = runAsync(() -> {
+                client1.lock(1);
+                try {
+                    locked1.complete(null);
+                    locked2.join();
+                    client1.lock(2);
+                    client1.unlock(2);
+                } finally {
+                    client1.unlock(1);
+                }
+            });
+
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                client2.lock(2);
+                try {
+                    locked2.complete(null);
+                    locked1.join();
+                    client2.lock(1);
+                    client2.unlock(1);
+                } finally {
+                    client2.unlock(2);
+                }
+            });
+
+            try {
+                future1.join();
+            } catch (CompletionException e) {
+                future2.join();
+                throw e.getCause();
+            }
+
+            try {
+                future2.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    void slowServer_tryLockBoundedAndLateGrantReleased() {
+        CountDownLatch release = new CountDownLatch(1);
+        EntityLocker<ByteBuffer> locker = new OwnedEntityLocker<>();
+        try (LockServer slowServer = new LockServer(new EntityLocker<ByteBuffer>() {
+            @Override
+            public void lock(ByteBuffer id) {
+                locker.lock(id);
+            }
+
+            @Override
+            public boolean tryLock(ByteBuffer id, long timeout, TimeUnit unit) throws InterruptedException {
+                release.await();
+                return locker.tryLock(id, timeout, unit);
+            }
+
+            @Override
+            public void unlock(ByteBuffer id) {
+                locker.unlock(id);
+            }
+        }, new InetSocketAddress("localhost", 0));
+             RemoteEntityLocker<Integer> client = new RemoteEntityLocker<>(slowServer.getAddress(), RemoteEntityLockerTest::encode)) {
+            long started = System.nanoTime();
+            assertFalse(supplyAsync(() -> tryLock(client, 1, 20)).join());
+            assertTrue(System.nanoTime() - started < SECONDS.toNanos(1));
+
+            release.countDown();
+            assertTrue(supplyAsync(() -> tryLockAndUnlock(client, 1)).join());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void interruptedWhileWaiting_tryLockAbandoned() {
+        client1.lock(1);
+        CompletableFuture<Throwable> interrupted = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                client2.tryLock(1, 10, SECONDS);
+                interrupted.complete(null);
+            } catch (Throwable e) {
+                interrupted.complete(e);
+            }
+        });
+        waiter.start();
+        MILLISECONDS.sleep(50);
+        waiter.interrupt();
+
+        assertTrue(interrupted.get(1, SECONDS) instanceof InterruptedException);
+        client1.unlock(1);
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(client2, 1)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void clientClosed_locksReleased() {
+        runAsync(() -> client1.lock(1)).join();
+        client1.close();
+
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(client2, 1)).join());
+        while (server.getSessionsNumber() != 1) {
+            Thread.sleep(1);
+        }
+        assertThrows(IllegalStateException.class, () -> client1.lock(2));
+    }
+
+    @Test
+    @SneakyThrows
+    void repeatedLockFrames_heldUntilEveryUnlock() {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            send(channel, LockServer.LOCK, 1, 1);
+            send(channel, LockServer.LOCK, 2, 1);
+            assertEquals(LockServer.OK, receive(channel, 1));
+            assertEquals(LockServer.OK, receive(channel, 2));
+
+            send(channel, LockServer.UNLOCK, 0, 1);
+            assertFalse(supplyAsync(() -> tryLock(client2, 1, 20)).join());
+            send(channel, LockServer.UNLOCK, 0, 1);
+            assertTrue(supplyAsync(() -> tryLockAndUnlock(client2, 1)).join());
+            while (server.getOwnersNumber() != 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void send(SocketChannel channel, byte op, int requestId, int id) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + LockServer.HEADER_SIZE + Integer.BYTES)
+                .putInt(LockServer.HEADER_SIZE + Integer.BYTES)
+                .put(op)
+                .putInt(requestId)
+                .putLong(1)
+                .putLong(-1)
+                .putInt(id)
+                .flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    @SneakyThrows
+    private static byte receive(SocketChannel channel, int requestId) {
+        ByteBuffer response = ByteBuffer.allocate(LockServer.RESPONSE_SIZE);
+        while (response.hasRemaining()) {
+            channel.read(response);
+        }
+        response.flip();
+        assertEquals(requestId, response.getInt());
+        return response.get();
+    }
+
+    @SneakyThrows
+    private RemoteEntityLocker<Integer> newClient() {
+        return new RemoteEntityLocker<>(server.getAddress(), RemoteEntityLockerTest::encode);
+    }
+
+    private static byte[] encode(Integer id) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(id).array();
+    }
+
+    private void doIncrements(RemoteEntityLocker<Integer> client, int endExclusive) {
+        for (int i = 0; i < endExclusive; i++) {
+            client.lock(1);
+            try {
+                counter++;
+            } finally {
+                client.unlock(1);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private boolean tryLock(RemoteEntityLocker<Integer> client, int id, int timeout) {
+        return client.tryLock(id, timeout, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLockAndUnlock(RemoteEntityLocker<Integer> client, int id) {
+        if (!client.tryLock(id, 5, SECONDS)) {
+            return false;
+        }
+        client.unlock(id);
+        return true;
+    }
+}
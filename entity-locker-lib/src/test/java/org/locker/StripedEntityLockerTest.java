@@ -0,0 +1,156 @@
+package org.locker;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedEntityLockerTest {
+    private static final int STRIPES = 4;
+    private StripedEntityLocker<Integer> locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private Lock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new StripedEntityLocker<>(STRIPES);
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    void stripesNumberRoundedUpToPowerOfTwo() {
+        assertEquals(1, new StripedEntityLocker<>(1).getStripesNumber());
+        assertEquals(4, new StripedEntityLocker<>(3).getStripesNumber());
+        assertEquals(16, new StripedEntityLocker<>(16).getStripesNumber());
+        assertEquals(32, new StripedEntityLocker<>(17).getStripesNumber());
+        assertThrows(IllegalArgumentException.class, () -> new StripedEntityLocker<>(0));
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 100000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+    }
+
+    @Test
+    void reentrantLockingOverOtherIdOnSameStripe() {
+        int sameStripeId = 1 + STRIPES;
+        assertEquals(locker.getStripeIndex(1), locker.getStripeIndex(sameStripeId));
+
+        lock(1);
+        try {
+            lock(sameStripeId);
+            try {
+                lock(1);
+                try {
+                    counter++;
+                } finally {
+                    unlock(1);
+                }
+            } finally {
+                unlock(sameStripeId);
+            }
+        } finally {
+            unlock(1);
+        }
+        assertEquals(1, counter);
+    }
+
+    @Test
+    @SneakyThrows
+    void entityLocked_sameStripeTimeout_otherStripeNoTimeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            lock(1);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(1, timeout)).join());
+        assertFalse(supplyAsync(() -> tryLock(1 + STRIPES, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            int id = 2;
+            try {
+                return tryLock(id, timeout);
+            } finally {
+                unlock(id);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int id = (int) (random() * 2);
+            int numberOfLocks = (int) (random() * 3 + 1);
+            for (int j = 0; j < numberOfLocks; j++) {
+                int lockType = (int) (random() * 2);
+                if (lockType == 0) {
+                    locker.lock(id);
+                } else {
+                    locker.tryLock(id, 1, HOURS);
+                }
+            }
+            try {
+                if (id == 1) {
+                    counter++;
+                } else {
+                    i++;
+                }
+            } finally {
+                for (int j = 0; j < numberOfLocks; j++) {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+
+    private void lock(int id) {
+        locker.lock(id);
+    }
+
+    private void unlock(int id) {
+        locker.unlock(id);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+}
@@ -0,0 +1,62 @@
+package org.locker.tests;
+
+import org.junit.jupiter.api.Test;
+import org.locker.AdaptiveEscalationPolicy;
+import org.locker.BasicEntityLocker;
+import org.locker.EscalationEntityLocker;
+import org.locker.EscalationPolicy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveEscalationPolicyTest {
+
+    @Test
+    void longEscalationWaits_thresholdRaised() {
+        AdaptiveEscalationPolicy policy = new AdaptiveEscalationPolicy(4, 2, 20, 1, MILLISECONDS, 1000);
+        policy.onEscalation(MILLISECONDS.toNanos(1));
+        assertEquals(4, policy.getThreshold());
+        policy.onEscalation(MILLISECONDS.toNanos(2));
+        assertEquals(9, policy.getThreshold());
+        policy.onFailedEscalation(0);
+        assertEquals(19, policy.getThreshold());
+        policy.onFailedEscalation(0);
+        assertEquals(20, policy.getThreshold());
+    }
+
+    @Test
+    void lockTablePressure_thresholdLowered() {
+        AdaptiveEscalationPolicy policy = new AdaptiveEscalationPolicy(16, 3, 20, 1, MILLISECONDS, 1000);
+        policy.onLockTableSize(1000);
+        assertEquals(16, policy.getThreshold());
+        policy.onLockTableSize(1001);
+        assertEquals(8, policy.getThreshold());
+        policy.onLockTableSize(1001);
+        policy.onLockTableSize(1001);
+        assertEquals(3, policy.getThreshold());
+    }
+
+    @Test
+    void lockTablePressureObservedByLocker_thresholdLowered() {
+        AdaptiveEscalationPolicy policy = new AdaptiveEscalationPolicy(64, 1, 64, 1, MILLISECONDS, 1);
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), policy);
+        locker.lock(0);
+        for (int i = 0; i < 256; i++) {
+            locker.lock(1);
+            locker.unlock(1);
+        }
+        locker.unlock(0);
+        assertEquals(32, locker.getThreshold());
+    }
+
+    @Test
+    void invalidThresholds_exception() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveEscalationPolicy(1, 2, 20, 1, NANOSECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveEscalationPolicy(5, 6, 5, 1, NANOSECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveEscalationPolicy(5, 1, 20, 1, NANOSECONDS, 0));
+        assertThrows(IllegalArgumentException.class, () -> EscalationPolicy.fixed(-1));
+        assertThrows(IllegalArgumentException.class, () -> EscalationPolicy.fixed(1, -1, NANOSECONDS));
+    }
+}
@@ -0,0 +1,179 @@
+package org.locker.tests;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.AsyncEntityLocker;
+import org.locker.AsyncEscalationEntityLocker;
+import org.locker.AsyncGlobalEntityLocker;
+import org.locker.AsyncNoDeadLockEntityLocker;
+import org.locker.BasicAsyncEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.LockHandle;
+import org.locker.LockOwner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncEntityLockerTest {
+    private ExecutorService otherThread;
+
+    @BeforeEach
+    void setUp() {
+        otherThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+    }
+
+    @Test
+    void globalLockWaitsForEntityLocks() {
+        AsyncGlobalEntityLocker<Integer> locker = new AsyncGlobalEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockHandle entity = lock(locker, 1);
+        CompletableFuture<LockHandle> global = locker.lockAsync().toCompletableFuture();
+        CompletableFuture<LockHandle> nextEntity = locker.lockAsync(2).toCompletableFuture();
+        assertFalse(global.isDone());
+        assertFalse(nextEntity.isDone());
+
+        entity.unlock();
+        assertTrue(global.isDone());
+        assertFalse(nextEntity.isDone());
+
+        global.join().unlock();
+        assertTrue(nextEntity.isDone());
+        nextEntity.join().unlock();
+    }
+
+    @Test
+    void globalLockTimedOut() {
+        AsyncGlobalEntityLocker<Integer> locker = new AsyncGlobalEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockHandle entity = lock(locker, 1);
+        CompletableFuture<LockHandle> global = locker.lockAsync(50, MILLISECONDS).toCompletableFuture();
+
+        CompletionException exception = assertThrows(CompletionException.class, global::join);
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        lock(locker, 2).unlock();
+        entity.unlock();
+        locker.lockAsync().toCompletableFuture().join().unlock();
+    }
+
+    @Test
+    void entityLockTimedOutWhileGloballyLocked() {
+        AsyncGlobalEntityLocker<Integer> locker = new AsyncGlobalEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockHandle global = locker.lockAsync().toCompletableFuture().join();
+        CompletableFuture<LockHandle> entity = locker.lockAsync(1, 50, MILLISECONDS).toCompletableFuture();
+
+        CompletionException exception = assertThrows(CompletionException.class, entity::join);
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        global.unlock();
+        lock(locker, 1).unlock();
+    }
+
+    @Test
+    void deadlockDetected() {
+        AsyncEntityLocker<Integer> locker = new AsyncNoDeadLockEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockHandle first = lock(locker, 1);
+        LockHandle second = supplyAsync(() -> lock(locker, 2), otherThread).join();
+        CompletableFuture<LockHandle> pending = supplyAsync(() -> locker.lockAsync(1).toCompletableFuture(), otherThread).join();
+        assertFalse(pending.isDone());
+
+        CompletableFuture<LockHandle> deadlocked = locker.lockAsync(2).toCompletableFuture();
+        CompletionException exception = assertThrows(CompletionException.class, deadlocked::join);
+        assertTrue(exception.getCause() instanceof DeadlockDetectedException);
+
+        first.unlock();
+        pending.join().unlock();
+        second.unlock();
+        lock(locker, 2).unlock();
+    }
+
+    @Test
+    void operationsOnOneThreadFormCycle_deadlockDetected() {
+        AsyncEntityLocker<Integer> locker = new AsyncNoDeadLockEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockOwner first = LockOwner.newOwner();
+        LockOwner second = LockOwner.newOwner();
+        LockHandle firstHeld = locker.lockAsync(1, first).toCompletableFuture().join();
+        LockHandle secondHeld = locker.lockAsync(2, second).toCompletableFuture().join();
+        CompletableFuture<LockHandle> pending = locker.lockAsync(2, first).toCompletableFuture();
+        assertFalse(pending.isDone());
+
+        CompletableFuture<LockHandle> deadlocked = locker.lockAsync(1, second, 1, SECONDS).toCompletableFuture();
+        CompletionException exception = assertThrows(CompletionException.class, deadlocked::join);
+        assertTrue(exception.getCause() instanceof DeadlockDetectedException);
+
+        secondHeld.unlock();
+        pending.join().unlock();
+        firstHeld.unlock();
+        locker.lockAsync(1, second).toCompletableFuture().join().unlock();
+    }
+
+    @Test
+    void sameOwnerWaitIsNotDeadlock() {
+        AsyncEntityLocker<Integer> locker = new AsyncNoDeadLockEntityLocker<>(new BasicAsyncEntityLocker<>());
+        LockHandle first = lock(locker, 1);
+        CompletableFuture<LockHandle> next = locker.lockAsync(1).toCompletableFuture();
+        assertFalse(next.isDone());
+
+        first.unlock();
+        next.join().unlock();
+    }
+
+    @Test
+    void escalatedOverThreshold() {
+        AsyncEntityLocker<Integer> locker = new AsyncEscalationEntityLocker<>(new BasicAsyncEntityLocker<>(), 2);
+        LockHandle first = lock(locker, 1);
+        LockHandle second = lock(locker, 2);
+        LockHandle third = lock(locker, 3);
+
+        CompletableFuture<LockHandle> otherOwner = supplyAsync(() -> {
+            lock(locker, 4);
+            lock(locker, 5);
+            return locker.lockAsync(6).toCompletableFuture();
+        }, otherThread).join();
+        assertFalse(otherOwner.isDone());
+
+        third.unlock();
+        assertTrue(otherOwner.isDone());
+        first.unlock();
+        second.unlock();
+    }
+
+    @Test
+    void escalationCountedPerOwnerOnOneThread() {
+        AsyncEntityLocker<Integer> locker = new AsyncEscalationEntityLocker<>(new BasicAsyncEntityLocker<>(), 2);
+        LockOwner first = LockOwner.newOwner();
+        LockOwner second = LockOwner.newOwner();
+        LockHandle one = locker.lockAsync(1, first).toCompletableFuture().join();
+        LockHandle two = locker.lockAsync(2, first).toCompletableFuture().join();
+        LockHandle three = locker.lockAsync(3, second).toCompletableFuture().join();
+        LockHandle four = locker.lockAsync(4, second).toCompletableFuture().join();
+
+        LockHandle escalated = locker.lockAsync(5, first).toCompletableFuture().join();
+        CompletableFuture<LockHandle> otherOwner = locker.lockAsync(6, second).toCompletableFuture();
+        assertFalse(otherOwner.isDone());
+
+        escalated.unlock();
+        assertTrue(otherOwner.isDone());
+        otherOwner.join().unlock();
+        one.unlock();
+        two.unlock();
+        three.unlock();
+        four.unlock();
+    }
+
+    private static LockHandle lock(AsyncEntityLocker<Integer> locker, int id) {
+        return locker.lockAsync(id).toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,171 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.BackgroundNoDeadLockEntityLocker;
+import org.locker.BasicEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.VictimSelectionPolicy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * t1 == thread1
+ * r1 == resource1
+ */
+class BackgroundNoDeadLockEntityLockerTest {
+    private static final long INTERVAL_MILLIS = 5;
+    private BackgroundNoDeadLockEntityLocker<Integer> locker;
+    private ExecutorService threadPool;
+    private CountDownLatch countDownLatchStopper;
+
+    @BeforeEach
+    void setUp() {
+        threadPool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        threadPool.shutdown();
+        if (locker != null) {
+            locker.close();
+        }
+    }
+
+    @Test
+    void t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1_oneVictim() {
+        for (int i = 0; i < 20; i++) {
+            useLocker(VictimSelectionPolicy.YOUNGEST);
+            CompletableFuture<Boolean> future1 = supplyAsync(() -> lockBoth(new int[]{1}, 2, false), threadPool);
+            CompletableFuture<Boolean> future2 = supplyAsync(() -> lockBoth(new int[]{2}, 1, false), threadPool);
+
+            assertEquals(1, count(future1.join(), future2.join()));
+            locker.close();
+        }
+    }
+
+    @Test
+    void t1_tryLocks_r2_and_t2_tryLocks_r1_oneVictim() {
+        useLocker(VictimSelectionPolicy.YOUNGEST);
+        CompletableFuture<Boolean> future1 = supplyAsync(() -> lockBoth(new int[]{1}, 2, true), threadPool);
+        CompletableFuture<Boolean> future2 = supplyAsync(() -> lockBoth(new int[]{2}, 1, true), threadPool);
+
+        assertEquals(1, count(future1.join(), future2.join()));
+    }
+
+    @Test
+    void fewestLocksVictim() {
+        useLocker(VictimSelectionPolicy.FEWEST_LOCKS);
+        CompletableFuture<Boolean> future1 = supplyAsync(() -> lockBoth(new int[]{1, 2, 3}, 4, false), threadPool);
+        CompletableFuture<Boolean> future2 = supplyAsync(() -> lockBoth(new int[]{4}, 1, false), threadPool);
+
+        assertFalse(future1.join());
+        assertTrue(future2.join());
+    }
+
+    @Test
+    void lowestPriorityVictim() {
+        useLocker(VictimSelectionPolicy.LOWEST_PRIORITY);
+        CompletableFuture<Boolean> future1 = supplyAsync(() -> withPriority(Thread.MIN_PRIORITY, () -> lockBoth(new int[]{1}, 2, false)), threadPool);
+        CompletableFuture<Boolean> future2 = supplyAsync(() -> withPriority(Thread.MAX_PRIORITY, () -> lockBoth(new int[]{2}, 1, false)), threadPool);
+
+        assertTrue(future1.join());
+        assertFalse(future2.join());
+    }
+
+    @Test
+    @SneakyThrows
+    void timedOutWithoutDeadlock() {
+        useLocker(VictimSelectionPolicy.YOUNGEST);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+        CompletableFuture<Void> holder = runAsync(() -> {
+            locker.lock(1);
+            try {
+                locked.countDown();
+                await(stopper);
+            } finally {
+                locker.unlock(1);
+            }
+        }, threadPool);
+
+        locked.await();
+        assertFalse(locker.tryLock(1, 50, MILLISECONDS));
+        assertFalse(Thread.currentThread().isInterrupted());
+        stopper.countDown();
+        holder.join();
+        assertTrue(locker.tryLock(1, 50, MILLISECONDS));
+        locker.unlock(1);
+    }
+
+    private void useLocker(VictimSelectionPolicy policy) {
+        locker = new BackgroundNoDeadLockEntityLocker<>(new BasicEntityLocker<>(), INTERVAL_MILLIS, MILLISECONDS, policy);
+        countDownLatchStopper = new CountDownLatch(2);
+    }
+
+    @SneakyThrows
+    private boolean lockBoth(int[] heldIds, int pendingId, boolean timed) {
+        for (int id : heldIds) {
+            locker.lock(id);
+        }
+        try {
+            countDownLatchStopper.countDown();
+            await(countDownLatchStopper);
+            if (timed) {
+                assertTrue(locker.tryLock(pendingId, 1, HOURS));
+            } else {
+                locker.lock(pendingId);
+            }
+            locker.unlock(pendingId);
+            assertFalse(Thread.currentThread().isInterrupted());
+            return false;
+        } catch (DeadlockDetectedException e) {
+            assertFalse(Thread.currentThread().isInterrupted());
+            return true;
+        } finally {
+            for (int i = heldIds.length - 1; i >= 0; i--) {
+                locker.unlock(heldIds[i]);
+            }
+        }
+    }
+
+    private static <T> T withPriority(int priority, Supplier<T> task) {
+        Thread thread = Thread.currentThread();
+        int oldPriority = thread.getPriority();
+        thread.setPriority(priority);
+        try {
+            return task.get();
+        } finally {
+            thread.setPriority(oldPriority);
+        }
+    }
+
+    private static int count(boolean... victims) {
+        int count = 0;
+        for (boolean victim : victims) {
+            if (victim) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+}
@@ -0,0 +1,250 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicEntityLocker;
+import org.locker.EntityLocker;
+import org.locker.EscalationEntityLocker;
+import org.locker.NoDeadLockEntityLocker;
+import org.locker.StripedEntityLocker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkEntityLockerTest {
+    private static final int THRESHOLD = 3;
+    private volatile int counter;
+
+    @Test
+    @SneakyThrows
+    void lockAllInOppositeOrders_noDeadLock() {
+        EntityLocker<Integer> locker = new NoDeadLockEntityLocker<>(new BasicEntityLocker<>());
+        assertNoDeadlockInOppositeOrders(locker);
+    }
+
+    @Test
+    @SneakyThrows
+    void lockAllInOppositeOrdersOverStripes_noDeadLock() {
+        EntityLocker<Integer> locker = new StripedEntityLocker<>(4);
+        assertNoDeadlockInOppositeOrders(locker);
+    }
+
+    @Test
+    @SneakyThrows
+    void lockAllOverThreshold_escalatesUpFront() {
+        CountingEntityLocker counting = new CountingEntityLocker();
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(counting, THRESHOLD);
+        List<Integer> ids = Arrays.asList(4, 3, 2, 1, 0);
+        CountDownLatch escalated = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+
+        CompletableFuture<Void> future = runAsync(() -> {
+            locker.lockAll(ids);
+            escalated.countDown();
+            await(stopper);
+            locker.unlockAll(ids);
+        });
+
+        escalated.await();
+        assertEquals(0, counting.locks.get());
+        assertEquals(1, locker.getEscalations());
+        List<Integer> otherIds = Arrays.asList(10, 11, 12, 13);
+        assertFalse(supplyAsync(() -> tryLockAll(locker, otherIds, 5)).join());
+        assertFalse(supplyAsync(() -> tryLockAll(locker, otherIds.subList(0, 1), 5)).join());
+
+        stopper.countDown();
+        future.join();
+        assertTrue(supplyAsync(() -> tryLockAll(locker, otherIds, 5)).join());
+        assertEquals(2, locker.getEscalations());
+    }
+
+    @Test
+    @SneakyThrows
+    void tryLockAllOverThresholdInPartition_escalatesOnlyThatPartitionUpFront() {
+        CountingEntityLocker counting = new CountingEntityLocker();
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(counting, THRESHOLD, id -> id / 100);
+        List<Integer> ids = Arrays.asList(0, 1, 2, 3, 100, 101);
+
+        assertTrue(locker.tryLockAll(ids, 5, MILLISECONDS));
+        try {
+            assertEquals(1, locker.getEscalations());
+            assertEquals(2, counting.locks.get());
+            assertFalse(supplyAsync(() -> tryLockAll(locker, Arrays.asList(50), 5)).join());
+            assertTrue(supplyAsync(() -> tryLockAll(locker, Arrays.asList(150), 5)).join());
+        } finally {
+            locker.unlockAll(ids);
+        }
+        assertTrue(supplyAsync(() -> tryLockAll(locker, ids, 5)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void tryLockAllTimeout_releasesAcquiredIds() {
+        EntityLocker<Integer> locker = new BasicEntityLocker<>();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+
+        CompletableFuture<Void> future = runAsync(() -> {
+            locker.lock(3);
+            locked.countDown();
+            await(stopper);
+            locker.unlock(3);
+        });
+
+        locked.await();
+        assertFalse(supplyAsync(() -> tryLockAll(locker, Arrays.asList(1, 2, 3), 5)).join());
+        assertTrue(supplyAsync(() -> tryLockAll(locker, Arrays.asList(1, 2), 5)).join());
+
+        stopper.countDown();
+        future.join();
+    }
+
+    @Test
+    void duplicateIdsLockedOnce() {
+        EntityLocker<Integer> locker = new BasicEntityLocker<>();
+        List<Integer> ids = Arrays.asList(1, 2, 1, 2);
+        locker.lockAll(ids);
+        locker.unlockAll(ids);
+        assertTrue(supplyAsync(() -> tryLockAll(locker, ids, 5)).join());
+    }
+
+    @Test
+    void hashCollidingIds_orderedByString() {
+        EntityLocker<Key> locker = new BasicEntityLocker<>();
+        List<Key> ids = Arrays.asList(new Key(1, "a"), new Key(2, "b"));
+        List<Key> reversedIds = Arrays.asList(new Key(2, "b"), new Key(1, "a"));
+        locker.lockAll(ids);
+        try {
+            assertFalse(supplyAsync(() -> tryLockAll(locker, reversedIds)).join());
+        } finally {
+            locker.unlockAll(ids);
+        }
+        assertTrue(supplyAsync(() -> tryLockAll(locker, reversedIds)).join());
+    }
+
+    @Test
+    void indistinguishableIds_rejected() {
+        EntityLocker<Key> locker = new BasicEntityLocker<>();
+        List<Key> ids = Arrays.asList(new Key(1, "a"), new Key(2, "a"));
+        assertThrows(IllegalArgumentException.class, () -> locker.lockAll(ids));
+        assertTrue(supplyAsync(() -> tryLockAll(locker, Collections.singletonList(new Key(1, "a")))).join());
+    }
+
+    private void assertNoDeadlockInOppositeOrders(EntityLocker<Integer> locker) throws InterruptedException {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(i);
+        }
+        List<Integer> reversedIds = new ArrayList<>(ids);
+        Collections.reverse(reversedIds);
+        int iterations = 10000;
+
+        Thread thread1 = new Thread(() -> doIncrements(locker, ids, iterations));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(locker, reversedIds, iterations));
+        thread2.start();
+
+        thread1.join();
+        thread2.join();
+        assertEquals(iterations * 2, counter);
+    }
+
+    private void doIncrements(EntityLocker<Integer> locker, List<Integer> ids, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            locker.lockAll(ids);
+            try {
+                counter++;
+            } finally {
+                locker.unlockAll(ids);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private boolean tryLockAll(EntityLocker<Integer> locker, List<Integer> ids, int timeout) {
+        if (locker.tryLockAll(ids, timeout, MILLISECONDS)) {
+            locker.unlockAll(ids);
+            return true;
+        }
+        return false;
+    }
+
+    @SneakyThrows
+    private static <ID> boolean tryLockAll(EntityLocker<ID> locker, List<ID> ids) {
+        if (locker.tryLockAll(ids, 5, MILLISECONDS)) {
+            locker.unlockAll(ids);
+            return true;
+        }
+        return false;
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    private static final class Key {
+        private final int id;
+        private final String label;
+
+        private Key(int id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final class CountingEntityLocker implements EntityLocker<Integer> {
+        private final EntityLocker<Integer> locker = new BasicEntityLocker<>();
+        private final AtomicInteger locks = new AtomicInteger();
+
+        @Override
+        public void lock(Integer id) {
+            locker.lock(id);
+            locks.incrementAndGet();
+        }
+
+        @Override
+        public boolean tryLock(Integer id, long timeout, TimeUnit unit) throws InterruptedException {
+            if (!locker.tryLock(id, timeout, unit)) {
+                return false;
+            }
+            locks.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void unlock(Integer id) {
+            locker.unlock(id);
+        }
+    }
+}
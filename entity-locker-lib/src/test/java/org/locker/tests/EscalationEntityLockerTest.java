@@ -4,18 +4,30 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locker.BasicEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.EntityLocker;
 import org.locker.EscalationEntityLocker;
+import org.locker.EscalationPolicy;
+import org.locker.NoDeadLockEntityLocker;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.Math.random;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EscalationEntityLockerTest {
@@ -246,6 +258,187 @@ class EscalationEntityLockerTest {
         stopperLock.unlock();
     }
 
+    @Test
+    void overThreshold_fineLocksReleased() {
+        CountingEntityLocker counting = new CountingEntityLocker();
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(counting, THRESHOLD);
+        for (int i = 0; i < 100; i++) {
+            locker.lock(i);
+            assertTrue(counting.held.get() <= THRESHOLD);
+        }
+        assertEquals(0, counting.held.get());
+        for (int i = 99; i >= 0; i--) {
+            locker.unlock(i);
+        }
+        assertEquals(0, counting.held.get());
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 0)).join());
+    }
+
+    @Test
+    void unlockedBelowHalfThreshold_deEscalated() {
+        CountingEntityLocker counting = new CountingEntityLocker();
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(counting, THRESHOLD);
+        for (int i = 0; i < 10; i++) {
+            locker.lock(i);
+        }
+        assertEquals(1, locker.getEscalations());
+        for (int i = 9; i > 0; i--) {
+            locker.unlock(i);
+        }
+        assertEquals(1, locker.getDeEscalations());
+        assertEquals(1, counting.held.get());
+        assertFalse(supplyAsync(() -> tryLockAndUnlock(locker, 0)).join());
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 5)).join());
+        locker.unlock(0);
+        assertEquals(0, counting.held.get());
+    }
+
+    @Test
+    void reentrantHoldsEscalated_releasedInAcquisitionOrder() {
+        CountingEntityLocker counting = new CountingEntityLocker();
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(counting, THRESHOLD);
+        locker.lock(0);
+        for (int i = 0; i < 100000; i++) {
+            locker.lock(i);
+        }
+        assertEquals(1, locker.getEscalations());
+        for (int i = 0; i < 100000; i++) {
+            locker.unlock(i);
+        }
+        assertEquals(1, locker.getDeEscalations());
+        assertEquals(1, counting.held.get());
+        assertFalse(supplyAsync(() -> tryLockAndUnlock(locker, 0)).join());
+        locker.unlock(0);
+        assertEquals(0, counting.held.get());
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(0));
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 0)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionLockedOverThreshold_otherPartitionsNotBlocked() {
+        locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), THRESHOLD, id -> id / 100);
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            lockOverThreshold();
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(50, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            int id = 150;
+            try {
+                return tryLock(id, timeout);
+            } finally {
+                unlock(id);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void holderWaitsForBlockedEscalatedPartition_deadlockDetected() {
+        locker = new EscalationEntityLocker<>(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()), THRESHOLD, id -> id / 100);
+        CountDownLatch otherLocked = new CountDownLatch(1);
+        ExecutorService escalating = newSingleThreadExecutor();
+        try {
+            runAsync(this::lockOverThreshold, escalating).join();
+
+            CompletableFuture<Void> other = runAsync(() -> {
+                lock(100);
+                try {
+                    otherLocked.countDown();
+                    lock(1);
+                } finally {
+                    unlock(100);
+                }
+            });
+            otherLocked.await();
+            MILLISECONDS.sleep(50);
+            assertFalse(other.isDone());
+
+            CompletableFuture<Void> crossing = runAsync(() -> lock(100), escalating);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> other.get(10, SECONDS));
+            assertTrue(e.getCause() instanceof DeadlockDetectedException);
+            crossing.get(10, SECONDS);
+            runAsync(() -> {
+                unlock(100);
+                unlockAll();
+            }, escalating).join();
+        } finally {
+            escalating.shutdown();
+        }
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 1)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void escalatedPartitionsCrossed_deadlockDetected() {
+        locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), THRESHOLD, id -> id / 100);
+        CountDownLatch escalated = new CountDownLatch(2);
+        CompletableFuture<Boolean> first = supplyAsync(() -> escalateAndCross(0, 100, escalated));
+        CompletableFuture<Boolean> second = supplyAsync(() -> escalateAndCross(100, 0, escalated));
+
+        assertTrue(first.get(10, SECONDS) | second.get(10, SECONDS));
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 1)).join());
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 101)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void escalationWaitFromPolicy_otherOwnersDrainedWithinWindow() {
+        locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), EscalationPolicy.fixed(THRESHOLD, 10, SECONDS));
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> other = runAsync(() -> {
+            lock(100);
+            locked.countDown();
+            sleep(50);
+            unlock(100);
+        });
+        locked.await();
+
+        lockOverThreshold();
+        assertEquals(1, locker.getEscalations());
+        other.join();
+        unlockAll();
+    }
+
+    @Test
+    @SneakyThrows
+    void zeroEscalationWait_escalationSkippedWhileOthersHoldLocks() {
+        locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), EscalationPolicy.fixed(THRESHOLD, 0, SECONDS));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+        CompletableFuture<Void> other = runAsync(() -> {
+            lock(100);
+            locked.countDown();
+            await(stopper);
+            unlock(100);
+        });
+        locked.await();
+
+        lockOverThreshold();
+        assertEquals(0, locker.getEscalations());
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(locker, 101)).join());
+        stopper.countDown();
+        other.join();
+        unlockAll();
+    }
+
+    @Test
+    void notLocked_unlockFailed() {
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1));
+        lock(1);
+        assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(2));
+        unlock(1);
+    }
+
     @Test
     @SneakyThrows
     void sync() {
@@ -294,6 +487,35 @@ class EscalationEntityLockerTest {
         }
     }
 
+    private boolean escalateAndCross(int firstId, int otherId, CountDownLatch escalated) {
+        for (int i = firstId; i <= firstId + THRESHOLD; i++) {
+            lock(i);
+        }
+        try {
+            escalated.countDown();
+            await(escalated);
+            lock(otherId);
+            unlock(otherId);
+            return false;
+        } catch (DeadlockDetectedException e) {
+            return true;
+        } finally {
+            for (int i = firstId + THRESHOLD; i >= firstId; i--) {
+                unlock(i);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private void sleep(long millis) {
+        MILLISECONDS.sleep(millis);
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+
     @SneakyThrows
     private void lockOverThreshold() {
         for (int i = 0; i <= THRESHOLD; i++) {
@@ -328,8 +550,43 @@ class EscalationEntityLockerTest {
         return result;
     }
 
+    @SneakyThrows
+    private static boolean tryLockAndUnlock(EscalationEntityLocker<Integer> locker, int id) {
+        if (!locker.tryLock(id, 5, MILLISECONDS)) {
+            return false;
+        }
+        locker.unlock(id);
+        return true;
+    }
+
     @SneakyThrows
     private boolean tryLock(int id, long timeout) {
         return locker.tryLock(id, timeout, MILLISECONDS);
     }
+
+    private static final class CountingEntityLocker implements EntityLocker<Integer> {
+        private final EntityLocker<Integer> locker = new BasicEntityLocker<>();
+        private final AtomicInteger held = new AtomicInteger();
+
+        @Override
+        public void lock(Integer id) {
+            locker.lock(id);
+            held.incrementAndGet();
+        }
+
+        @Override
+        public boolean tryLock(Integer id, long timeout, TimeUnit unit) throws InterruptedException {
+            if (!locker.tryLock(id, timeout, unit)) {
+                return false;
+            }
+            held.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void unlock(Integer id) {
+            held.decrementAndGet();
+            locker.unlock(id);
+        }
+    }
 }
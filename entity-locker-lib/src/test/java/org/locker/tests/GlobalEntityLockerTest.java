@@ -7,6 +7,7 @@ import org.locker.BasicEntityLocker;
 import org.locker.EscalationEntityLocker;
 import org.locker.GlobalEntityLocker;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -16,6 +17,7 @@ import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -279,6 +281,74 @@ class GlobalEntityLockerTest {
         stopperLock.unlock();
     }
 
+    @Test
+    @SneakyThrows
+    void entityUnlocked_pendingGlobalLockGranted() {
+        int id = 1;
+        CountDownLatch entityLocked = new CountDownLatch(1);
+        CountDownLatch globalPending = new CountDownLatch(1);
+
+        CompletableFuture<Void> entityFuture = runAsync(() -> {
+            lock(id);
+            try {
+                entityLocked.countDown();
+                await(globalPending);
+            } finally {
+                unlock(id);
+            }
+        });
+
+        entityLocked.await();
+        CompletableFuture<Boolean> globalFuture = supplyAsync(() -> {
+            globalPending.countDown();
+            try {
+                return tryLock(1, HOURS);
+            } finally {
+                unlock();
+            }
+        });
+        entityFuture.join();
+        assertTrue(globalFuture.get(10, SECONDS));
+    }
+
+    @Test
+    void globallyLocked_entityLockedByGlobalOwner() {
+        lock();
+        try {
+            assertTrue(tryLock(1, 0));
+            unlock(1);
+        } finally {
+            unlock();
+        }
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(1, 0);
+            } finally {
+                unlock(1);
+            }
+        }).join());
+    }
+
+    @Test
+    void manyEntityLocks_noHoldLimit() {
+        locker = new GlobalEntityLocker<>(new BasicEntityLocker<>());
+        int locks = 70_000;
+        for (int id = 0; id < locks; id++) {
+            lock(id);
+        }
+        assertFalse(supplyAsync(() -> tryLock(0)).join());
+        for (int id = 0; id < locks; id++) {
+            unlock(id);
+        }
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(0);
+            } finally {
+                unlock();
+            }
+        }).join());
+    }
+
     @Test
     @SneakyThrows
     void sync() {
@@ -381,6 +451,11 @@ class GlobalEntityLockerTest {
         }
     }
 
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+
     @SneakyThrows
     private void lock(int id) {
         locker.lock(id);
@@ -0,0 +1,158 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.EscalationEntityLocker;
+import org.locker.GlobalEntityLocker;
+import org.locker.InstrumentedEntityLocker;
+import org.locker.InstrumentedGlobalEntityLocker;
+import org.locker.LatencyHistogram;
+import org.locker.LockHandle;
+import org.locker.LockMetrics;
+import org.locker.NoDeadLockEntityLocker;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedEntityLockerTest {
+
+    @Test
+    @SneakyThrows
+    void acquisitionsAndHoldTimesRecorded() {
+        InstrumentedEntityLocker<Integer> locker = new InstrumentedEntityLocker<>(new BasicEntityLocker<>());
+        locker.lock(1);
+        Thread.sleep(5);
+        locker.unlock(1);
+        assertTrue(locker.tryLock(2, 10, MILLISECONDS));
+        locker.unlock(2);
+        try (LockHandle ignored = locker.acquire(3)) {
+            Thread.sleep(1);
+        }
+
+        LockMetrics metrics = locker.getMetrics();
+        assertEquals(3, metrics.getAcquisitions());
+        assertEquals(3, metrics.getWaitTime().getCount());
+        assertEquals(3, metrics.getHoldTime().getCount());
+        assertTrue(metrics.getHoldTime().getMaxNanos() >= MILLISECONDS.toNanos(5));
+        assertTrue(metrics.getHoldTime().getPercentileNanos(100) >= metrics.getHoldTime().getMaxNanos());
+        assertEquals(0, metrics.getTimeouts());
+    }
+
+    @Test
+    @SneakyThrows
+    void timeoutsRecorded() {
+        InstrumentedEntityLocker<Integer> locker = new InstrumentedEntityLocker<>(new BasicEntityLocker<>());
+        CountDownLatch countDownLatchStopper = new CountDownLatch(1);
+        ReentrantLock stopperLock = new ReentrantLock();
+        stopperLock.lock();
+
+        runAsync(() -> {
+            locker.lock(1);
+            try {
+                countDownLatchStopper.countDown();
+                stopperLock.lock();
+            } finally {
+                locker.unlock(1);
+            }
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(locker, 1)).join());
+        assertEquals(1, locker.getMetrics().getTimeouts());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    void deadlocksRecorded() {
+        InstrumentedEntityLocker<Integer> locker = new InstrumentedEntityLocker<>(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()));
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch secondLocked = new CountDownLatch(1);
+
+        runAsync(() -> {
+            locker.lock(1);
+            firstLocked.countDown();
+            await(secondLocked);
+            locker.lock(2);
+            locker.unlock(2);
+            locker.unlock(1);
+        });
+
+        await(firstLocked);
+        locker.lock(2);
+        secondLocked.countDown();
+        sleep(100);
+        assertThrows(DeadlockDetectedException.class, () -> locker.lock(1));
+        locker.unlock(2);
+        assertEquals(1, locker.getMetrics().getDeadlocks());
+    }
+
+    @Test
+    void escalationsRecorded() {
+        InstrumentedEntityLocker<Integer> locker = new InstrumentedEntityLocker<>(new EscalationEntityLocker<>(new BasicEntityLocker<>(), 2));
+        for (int id = 0; id < 4; id++) {
+            locker.lock(id);
+        }
+        for (int id = 3; id >= 0; id--) {
+            locker.unlock(id);
+        }
+        assertEquals(4, locker.getMetrics().getAcquisitions());
+        assertEquals(1, locker.getMetrics().getEscalations());
+    }
+
+    @Test
+    @SneakyThrows
+    void globallyBlockedLocksRecorded() {
+        InstrumentedGlobalEntityLocker<Integer> locker = new InstrumentedGlobalEntityLocker<>(new GlobalEntityLocker<>(new BasicEntityLocker<>()));
+        locker.lock();
+        assertFalse(supplyAsync(() -> tryLock(locker, 1)).join());
+        locker.unlock();
+        locker.lock(1);
+        locker.unlock(1);
+
+        LockMetrics metrics = locker.getMetrics();
+        assertEquals(1, metrics.getGlobalLocks());
+        assertEquals(1, metrics.getGloballyBlockedLocks());
+        assertEquals(1, metrics.getTimeouts());
+        assertEquals(2, metrics.getAcquisitions());
+        assertEquals(2, metrics.getHoldTime().getCount());
+    }
+
+    @Test
+    void bucketUpperBounds() {
+        assertEquals(0, LatencyHistogram.getBucketUpperBound(0));
+        assertEquals(1, LatencyHistogram.getBucketUpperBound(1));
+        assertEquals(1023, LatencyHistogram.getBucketUpperBound(10));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketUpperBound(63));
+    }
+
+    @SneakyThrows
+    private static boolean tryLock(InstrumentedEntityLocker<Integer> locker, int id) {
+        return locker.tryLock(id, 10, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private static boolean tryLock(InstrumentedGlobalEntityLocker<Integer> locker, int id) {
+        return locker.tryLock(id, 10, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    @SneakyThrows
+    private static void sleep(long millis) {
+        Thread.sleep(millis);
+    }
+}
@@ -0,0 +1,151 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.EntityLocker;
+import org.locker.EscalationEntityLocker;
+import org.locker.GlobalEntityLocker;
+import org.locker.LockHandle;
+import org.locker.NoDeadLockEntityLocker;
+import org.locker.StripedEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LockHandleTest {
+
+    @Test
+    void stripedHandleReleasesStripe() {
+        assertReleasedOnClose(new StripedEntityLocker<>(4));
+    }
+
+    @Test
+    void noDeadLockHandleReleasesGraph() {
+        assertReleasedOnClose(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()));
+    }
+
+    @Test
+    void escalationHandleReleasesEscalatedLock() {
+        EntityLocker<Integer> locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), 1);
+        try (LockHandle first = locker.acquire(1); LockHandle second = locker.acquire(2)) {
+            assertFalse(supplyAsync(() -> tryAcquire(locker, 3) != null).join());
+        }
+        assertTrue(supplyAsync(() -> {
+            try (LockHandle third = locker.acquire(3); LockHandle fourth = tryAcquire(locker, 4)) {
+                return fourth != null;
+            }
+        }).join());
+    }
+
+    @Test
+    void escalationHandlesReleasedAcrossEscalationChanges() {
+        EscalationEntityLocker<Integer> locker = new EscalationEntityLocker<>(new BasicEntityLocker<>(), 2);
+        LockHandle first = locker.acquire(1);
+        LockHandle second = locker.acquire(2);
+        LockHandle third = locker.acquire(3);
+        assertEquals(1, locker.getEscalations());
+
+        first.close();
+        second.close();
+        assertEquals(1, locker.getDeEscalations());
+        assertNull(supplyAsync(() -> tryAcquire(locker, 3)).join());
+        assertTrue(supplyAsync(() -> {
+            try (LockHandle handle = tryAcquire(locker, 1)) {
+                return handle != null;
+            }
+        }).join());
+
+        third.close();
+        assertThrows(IllegalMonitorStateException.class, third::close);
+        assertTrue(supplyAsync(() -> {
+            try (LockHandle handle = tryAcquire(locker, 3)) {
+                return handle != null;
+            }
+        }).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void noDeadLockHandleDetectsDeadlock() {
+        EntityLocker<Integer> locker = new NoDeadLockEntityLocker<>(new BasicEntityLocker<>());
+        CountDownLatch firstLocked = new CountDownLatch(1);
+        CountDownLatch secondLocked = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = runAsync(() -> {
+            try (LockHandle first = locker.acquire(1)) {
+                firstLocked.countDown();
+                await(secondLocked);
+                try (LockHandle second = locker.acquire(2)) {
+                    assertNotNull(second);
+                }
+            }
+        });
+
+        firstLocked.await();
+        try (LockHandle second = locker.acquire(2)) {
+            secondLocked.countDown();
+            Thread.sleep(100);
+            assertThrows(DeadlockDetectedException.class, () -> locker.acquire(1));
+        }
+        holder.join();
+    }
+
+    @Test
+    @SneakyThrows
+    void globalHandleReleasesEntityCounter() {
+        GlobalEntityLocker<Integer> locker = new GlobalEntityLocker<>(new BasicEntityLocker<>());
+        try (LockHandle ignored = locker.acquire(1)) {
+            assertFalse(supplyAsync(() -> tryLockGlobally(locker)).join());
+        }
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLockGlobally(locker);
+            } finally {
+                locker.unlock();
+            }
+        }).join());
+    }
+
+    private static void assertReleasedOnClose(EntityLocker<Integer> locker) {
+        try (LockHandle ignored = locker.acquire(1)) {
+            assertNull(supplyAsync(() -> tryAcquire(locker, 1)).join());
+        }
+        assertTrue(supplyAsync(() -> {
+            try (LockHandle handle = tryAcquire(locker, 1)) {
+                return handle != null;
+            }
+        }).join());
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    @SneakyThrows
+    private static LockHandle tryAcquire(EntityLocker<Integer> locker, int id) {
+        return locker.tryAcquire(id, 10, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private static LockHandle tryAcquire(GlobalEntityLocker<Integer> locker, int id) {
+        return locker.tryAcquire(id, 10, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private static boolean tryLockGlobally(GlobalEntityLocker<Integer> locker) {
+        return locker.tryLock(10, MILLISECONDS);
+    }
+}
@@ -15,6 +15,7 @@ import java.util.concurrent.ExecutorService;
 
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -26,6 +27,7 @@ class NoDeadLockEntityLockerFor2ThreadsTest {
     private EntityLocker<Integer> locker;
     private CountDownLatch countDownLatchStopper;
     private ExecutorService threadPool;
+    private boolean timed;
 
     @Test
     public void reproduceDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
@@ -36,6 +38,16 @@ class NoDeadLockEntityLockerFor2ThreadsTest {
         threadPool.shutdown();
     }
 
+    @Test
+    public void reproduceDeadlockWithTimeout_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
+        threadPool = newFixedThreadPool(N_THREADS);
+        timed = true;
+        for (int i = 0; i < 1000; i++) {
+            reproduceDeadlock();
+        }
+        threadPool.shutdown();
+    }
+
     private void reproduceDeadlock() {
         locker = new EscalationEntityLocker<>(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()), 100);
         countDownLatchStopper = new CountDownLatch(2);
@@ -95,6 +107,10 @@ class NoDeadLockEntityLockerFor2ThreadsTest {
 
     @SneakyThrows
     private void lock(int id) {
-        locker.lock(id);
+        if (!timed) {
+            locker.lock(id);
+        } else if (!locker.tryLock(id, 1, HOURS)) {
+            throw new IllegalStateException("Lock of " + id + " timed out");
+        }
     }
 }
@@ -8,6 +8,8 @@ import org.locker.EntityLocker;
 import org.locker.EscalationEntityLocker;
 import org.locker.NoDeadLockEntityLocker;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static java.lang.Math.random;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -44,6 +46,39 @@ class NoDeadLockEntityLockerTest {
         assertEquals(endExclusive * 3, counter);
     }
 
+    @Test
+    @SneakyThrows
+    void syncInLockOrder_noFalseDeadlocks() {
+        EntityLocker<Integer> noDeadLockLocker = new NoDeadLockEntityLocker<>(new BasicEntityLocker<>());
+        AtomicInteger completed = new AtomicInteger();
+        int endExclusive = 10000;
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> doOrderedIncrements(noDeadLockLocker, completed, endExclusive));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(endExclusive * threads.length, completed.get());
+    }
+
+    private void doOrderedIncrements(EntityLocker<Integer> noDeadLockLocker, AtomicInteger completed, int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int first = (int) (random() * 4);
+            int second = first + 1 + (int) (random() * 4);
+            noDeadLockLocker.lock(first);
+            noDeadLockLocker.lock(second);
+            try {
+                completed.incrementAndGet();
+            } finally {
+                noDeadLockLocker.unlock(second);
+                noDeadLockLocker.unlock(first);
+            }
+        }
+    }
+
     @SneakyThrows
     private void doIncrements(int endExclusive) {
         int i = endExclusive;
@@ -0,0 +1,177 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicLongEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.EscalationLongEntityLocker;
+import org.locker.LongEntityLocker;
+import org.locker.NoDeadLockLongEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * t1 == thread1
+ * r1 == resource1
+ */
+class NoDeadLockLongEntityLockerTest {
+    private static final int THRESHOLD = 3;
+    private LongEntityLocker locker;
+    private CountDownLatch countDownLatchStopper;
+    private ExecutorService threadPool;
+
+    @Test
+    public void reproduceDeadlock_t1_has_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
+        threadPool = newFixedThreadPool(2);
+        for (int i = 0; i < 1000; i++) {
+            reproduceDeadlock();
+        }
+        threadPool.shutdown();
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockedOverThreshold_escalatedTimeout() {
+        locker = new EscalationLongEntityLocker(new NoDeadLockLongEntityLocker(new BasicLongEntityLocker()), THRESHOLD);
+        CountDownLatch escalated = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+
+        CompletableFuture<Void> future = runAsync(() -> {
+            for (long id = 0; id <= THRESHOLD; id++) {
+                locker.lock(id);
+            }
+            escalated.countDown();
+            await(stopper);
+            for (long id = THRESHOLD; id >= 0; id--) {
+                locker.unlock(id);
+            }
+        });
+
+        escalated.await();
+        assertFalse(supplyAsync(() -> tryLockOverThreshold(10)).join());
+        stopper.countDown();
+        future.join();
+        assertTrue(supplyAsync(() -> tryLockOverThreshold(10)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    public void releasedAfterBlocking_noFalseDeadlock() {
+        locker = new NoDeadLockLongEntityLocker(new BasicLongEntityLocker());
+        ExecutorService t1 = newSingleThreadExecutor();
+        ExecutorService t2 = newSingleThreadExecutor();
+        ExecutorService t3 = newSingleThreadExecutor();
+        try {
+            runAsync(() -> locker.lock(2L), t2).join();
+            runAsync(() -> locker.lock(1L), t1).join();
+            CompletableFuture<Void> blocked = runAsync(() -> locker.lock(2L), t1);
+            MILLISECONDS.sleep(50);
+            runAsync(() -> locker.unlock(2L), t2).join();
+            blocked.join();
+            runAsync(() -> {
+                locker.unlock(2L);
+                locker.unlock(1L);
+            }, t1).join();
+
+            runAsync(() -> locker.lock(1L), t3).join();
+            runAsync(() -> locker.lock(4L), t2).join();
+            CompletableFuture<Void> waitsForT3 = runAsync(() -> locker.lock(1L), t2);
+            MILLISECONDS.sleep(50);
+            CompletableFuture<Void> waitsForT2 = runAsync(() -> locker.lock(4L), t1);
+            MILLISECONDS.sleep(50);
+            runAsync(() -> locker.unlock(1L), t3).join();
+            waitsForT3.join();
+            runAsync(() -> {
+                locker.unlock(1L);
+                locker.unlock(4L);
+            }, t2).join();
+            waitsForT2.join();
+            runAsync(() -> locker.unlock(4L), t1).join();
+        } finally {
+            t1.shutdown();
+            t2.shutdown();
+            t3.shutdown();
+        }
+    }
+
+    private void reproduceDeadlock() {
+        locker = new EscalationLongEntityLocker(new NoDeadLockLongEntityLocker(new BasicLongEntityLocker()), 100);
+        countDownLatchStopper = new CountDownLatch(2);
+        assertThrows(DeadlockDetectedException.class, () -> {
+            CompletableFuture<Void> future1 = runAsync(() -> {
+                locker.lock(1L);
+                try {
+                    countDownAndAwait();
+                    locker.lock(2L);
+                    locker.unlock(2L);
+                } finally {
+                    locker.unlock(1L);
+                }
+            }, threadPool);
+
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2L);
+                try {
+                    countDownAndAwait();
+                    locker.lock(1L);
+                    locker.unlock(1L);
+                } finally {
+                    locker.unlock(2L);
+                }
+            }, threadPool);
+
+            try {
+                future1.join();
+            } catch (CompletionException e) {
+                future2.join();
+                throw e.getCause();
+            }
+
+            try {
+                future2.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @SneakyThrows
+    private boolean tryLockOverThreshold(long firstId) {
+        long locked = 0;
+        try {
+            for (long id = firstId; id <= firstId + THRESHOLD; id++) {
+                if (!locker.tryLock(id, 5, MILLISECONDS)) {
+                    return false;
+                }
+                locked++;
+            }
+            return true;
+        } finally {
+            for (long id = firstId + locked - 1; id >= firstId; id--) {
+                locker.unlock(id);
+            }
+        }
+    }
+
+    private void countDownAndAwait() {
+        countDownLatchStopper.countDown();
+        await(countDownLatchStopper);
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+}
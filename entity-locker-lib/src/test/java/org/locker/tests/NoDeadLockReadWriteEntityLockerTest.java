@@ -0,0 +1,226 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicReadWriteEntityLocker;
+import org.locker.DeadlockDetectedException;
+import org.locker.EscalationReadWriteEntityLocker;
+import org.locker.NoDeadLockReadWriteEntityLocker;
+import org.locker.ReadWriteEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * t1 == thread1
+ * r1 == resource1
+ */
+class NoDeadLockReadWriteEntityLockerTest {
+    private static final int THRESHOLD = 3;
+    private ReadWriteEntityLocker<Integer> locker;
+    private CountDownLatch countDownLatchStopper;
+
+    @BeforeEach
+    void setUp() {
+        locker = new EscalationReadWriteEntityLocker<>(new NoDeadLockReadWriteEntityLocker<>(new BasicReadWriteEntityLocker<>()), THRESHOLD);
+        countDownLatchStopper = new CountDownLatch(2);
+    }
+
+    @Test
+    public void upgradeOfSharedLock_deadLock() {
+        locker.lockShared(1);
+        try {
+            assertThrows(DeadlockDetectedException.class, () -> locker.lock(1));
+        } finally {
+            locker.unlockShared(1);
+        }
+    }
+
+    @Test
+    public void tryUpgradeOfSharedLock_deadLock() {
+        locker.lockShared(1);
+        try {
+            assertThrows(DeadlockDetectedException.class, () -> locker.tryLock(1, 1, HOURS));
+        } finally {
+            locker.unlockShared(1);
+        }
+    }
+
+    @Test
+    public void reproduceDeadlockWithTimeout_t1_shares_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
+        assertThrows(DeadlockDetectedException.class, () -> {
+            CompletableFuture<Void> future1 = runAsync(() -> {
+                locker.lockShared(1);
+                try {
+                    countDownAndAwait();
+                    tryLock(2);
+                    locker.unlock(2);
+                } finally {
+                    locker.unlockShared(1);
+                }
+            });
+
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2);
+                try {
+                    countDownAndAwait();
+                    tryLock(1);
+                    locker.unlock(1);
+                } finally {
+                    locker.unlock(2);
+                }
+            });
+
+            try {
+                future1.join();
+            } catch (CompletionException e) {
+                future2.join();
+                throw e.getCause();
+            }
+
+            try {
+                future2.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    public void reproduceDeadlock_t1_shares_r1_yet_pending_r2_and_t2_has_r2_yet_pending_r1() {
+        assertThrows(DeadlockDetectedException.class, () -> {
+            CompletableFuture<Void> future1 = runAsync(() -> {
+                locker.lockShared(1);
+                try {
+                    countDownAndAwait();
+                    locker.lock(2);
+                    locker.unlock(2);
+                } finally {
+                    locker.unlockShared(1);
+                }
+            });
+
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2);
+                try {
+                    countDownAndAwait();
+                    locker.lock(1);
+                    locker.unlock(1);
+                } finally {
+                    locker.unlock(2);
+                }
+            });
+
+            try {
+                future1.join();
+            } catch (CompletionException e) {
+                future2.join();
+                throw e.getCause();
+            }
+
+            try {
+                future2.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    public void t1_shares_r1_yet_pending_r2_and_t2_has_r2_yet_pending_shared_r1_noDeadLock() {
+        CountDownLatch r1Shared = new CountDownLatch(1);
+        CompletableFuture<Void> future1 = runAsync(() -> {
+            locker.lockShared(1);
+            try {
+                r1Shared.countDown();
+                countDownAndAwait();
+                locker.lock(2);
+                locker.unlock(2);
+            } finally {
+                locker.unlockShared(1);
+            }
+        });
+
+        r1Shared.await();
+        locker.lock(2);
+        try {
+            countDownAndAwait();
+            locker.lockShared(1);
+            locker.unlockShared(1);
+        } finally {
+            locker.unlock(2);
+        }
+        future1.join();
+    }
+
+    @Test
+    @SneakyThrows
+    public void sharedLockedOverThreshold_escalatedTimeout() {
+        CountDownLatch escalated = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+        int timeout = 5;
+
+        CompletableFuture<Void> future = runAsync(() -> {
+            for (int i = 0; i <= THRESHOLD; i++) {
+                locker.lockShared(i);
+            }
+            escalated.countDown();
+            await(stopper);
+            for (int i = THRESHOLD; i >= 0; i--) {
+                locker.unlockShared(i);
+            }
+        });
+
+        escalated.await();
+        assertFalse(supplyAsync(() -> tryLockSharedOverThreshold(timeout)).join());
+        stopper.countDown();
+        future.join();
+        assertTrue(supplyAsync(() -> tryLockSharedOverThreshold(timeout)).join());
+    }
+
+    @SneakyThrows
+    private boolean tryLockSharedOverThreshold(int timeout) {
+        int locked = 0;
+        try {
+            for (int i = 0; i <= THRESHOLD; i++) {
+                if (!locker.tryLockShared(i, timeout, MILLISECONDS)) {
+                    return false;
+                }
+                locked++;
+            }
+            return true;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locker.unlockShared(i);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private void tryLock(int id) {
+        if (!locker.tryLock(id, 1, HOURS)) {
+            throw new IllegalStateException("Lock of " + id + " timed out");
+        }
+    }
+
+    private void countDownAndAwait() {
+        countDownLatchStopper.countDown();
+        await(countDownLatchStopper);
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+}
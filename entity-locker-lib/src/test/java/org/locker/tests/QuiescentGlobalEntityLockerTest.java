@@ -0,0 +1,283 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.BasicEntityLocker;
+import org.locker.LockHandle;
+import org.locker.QuiescentGlobalEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuiescentGlobalEntityLockerTest {
+
+    private QuiescentGlobalEntityLocker<Integer> locker;
+    private volatile int counter;
+    private CountDownLatch countDownLatchStopper;
+    private ReentrantLock stopperLock;
+
+    @BeforeEach
+    void setUp() {
+        counter = 0;
+        locker = new QuiescentGlobalEntityLocker<>(new BasicEntityLocker<>(), 4);
+        countDownLatchStopper = new CountDownLatch(1);
+        stopperLock = new ReentrantLock();
+    }
+
+    @Test
+    void invalidStripesNumber_exception() {
+        assertThrows(IllegalArgumentException.class, () -> new QuiescentGlobalEntityLocker<>(new BasicEntityLocker<>(), 0));
+    }
+
+    @Test
+    @SneakyThrows
+    void globallyLocked_timeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            lock();
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(timeout)).join());
+        assertFalse(supplyAsync(() -> tryLock(2, timeout)).join());
+        assertNull(supplyAsync(() -> tryAcquire(2, timeout)).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void entityLocked_timeout() {
+        stopperLock.lock();
+        int timeout = 5;
+
+        runAsync(() -> {
+            lock(1);
+            countDownLatchStopper.countDown();
+            stopperLock.lock();
+        });
+
+        countDownLatchStopper.await();
+        assertFalse(supplyAsync(() -> tryLock(timeout)).join());
+        assertFalse(supplyAsync(() -> tryLock(1, timeout)).join());
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(2, timeout);
+            } finally {
+                unlock(2);
+            }
+        }).join());
+
+        stopperLock.unlock();
+    }
+
+    @Test
+    @SneakyThrows
+    void entityUnlocked_pendingGlobalLockGranted() {
+        CountDownLatch entityLocked = new CountDownLatch(1);
+        CountDownLatch globalPending = new CountDownLatch(1);
+
+        CompletableFuture<Void> entityFuture = runAsync(() -> {
+            lock(1);
+            try {
+                entityLocked.countDown();
+                await(globalPending);
+            } finally {
+                unlock(1);
+            }
+        });
+
+        entityLocked.await();
+        CompletableFuture<Boolean> globalFuture = supplyAsync(() -> {
+            globalPending.countDown();
+            try {
+                return tryLockHours();
+            } finally {
+                unlock();
+            }
+        });
+        entityFuture.join();
+        assertTrue(globalFuture.get(10, SECONDS));
+    }
+
+    @Test
+    void globallyLocked_entityLockedByGlobalOwner() {
+        lock();
+        try {
+            lock();
+            try {
+                assertTrue(tryLock(1, 0));
+                unlock(1);
+            } finally {
+                unlock();
+            }
+        } finally {
+            unlock();
+        }
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(1, 0);
+            } finally {
+                unlock(1);
+            }
+        }).join());
+    }
+
+    @Test
+    void entityLocked_globalLockedByEntityOwner() {
+        lock(1);
+        try {
+            assertTrue(tryLock(5));
+            unlock();
+        } finally {
+            unlock(1);
+        }
+    }
+
+    @Test
+    void acquire_unlockedByHandle() {
+        LockHandle handle = tryAcquire(1, 5);
+        assertNotNull(handle);
+        assertFalse(supplyAsync(() -> tryLock(5)).join());
+        handle.unlock();
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(5);
+            } finally {
+                unlock();
+            }
+        }).join());
+    }
+
+    @Test
+    void handleClosedOnAnotherThread_rejected() {
+        LockHandle handle = tryAcquire(1, 5);
+        assertNotNull(handle);
+        CompletableFuture<Void> foreignClose = runAsync(handle::unlock);
+        assertThrows(CompletionException.class, foreignClose::join);
+        assertTrue(foreignClose.handle((result, e) -> e.getCause() instanceof IllegalMonitorStateException).join());
+        assertFalse(supplyAsync(() -> tryLock(5)).join());
+
+        handle.unlock();
+        assertTrue(supplyAsync(() -> {
+            try {
+                return tryLock(5);
+            } finally {
+                unlock();
+            }
+        }).join());
+    }
+
+    @Test
+    @SneakyThrows
+    void sync() {
+        int endExclusive = 10000;
+
+        Thread thread1 = new Thread(() -> doIncrements(endExclusive));
+        thread1.start();
+
+        Thread thread2 = new Thread(() -> doIncrements(endExclusive));
+        thread2.start();
+
+        Thread thread3 = new Thread(() -> doIncrements(endExclusive));
+        thread3.start();
+
+        thread1.join();
+        thread2.join();
+        thread3.join();
+        assertEquals(endExclusive * 3, counter);
+    }
+
+    @SneakyThrows
+    private void doIncrements(int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            boolean global = random() < 0.1;
+            int id = (int) (random() * 3);
+            if (global) {
+                locker.lock();
+            } else {
+                locker.lock(id);
+            }
+            try {
+                if (global) {
+                    counter++;
+                } else {
+                    i++;
+                    int observed = counter;
+                    Thread.onSpinWait();
+                    assertEquals(observed, counter);
+                }
+            } finally {
+                if (global) {
+                    locker.unlock();
+                } else {
+                    locker.unlock(id);
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    @SneakyThrows
+    private void lock(int id) {
+        locker.lock(id);
+    }
+
+    private void unlock(int id) {
+        locker.unlock(id);
+    }
+
+    @SneakyThrows
+    private void lock() {
+        locker.lock();
+    }
+
+    private void unlock() {
+        locker.unlock();
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int timeout) {
+        return locker.tryLock(timeout, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private boolean tryLockHours() {
+        return locker.tryLock(1, HOURS);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private LockHandle tryAcquire(int id, int timeout) {
+        return locker.tryAcquire(id, timeout, MILLISECONDS);
+    }
+}
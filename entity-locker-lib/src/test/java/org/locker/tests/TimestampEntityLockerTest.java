@@ -0,0 +1,224 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.locker.DeadlockDetectedException;
+import org.locker.DeadlockPreventionRule;
+import org.locker.EntityLocker;
+import org.locker.TimestampEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static java.lang.Math.random;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * t1 == thread1, the older transaction
+ * r1 == resource1
+ */
+class TimestampEntityLockerTest {
+    private volatile int counter;
+
+    @Test
+    @SneakyThrows
+    void waitDie_t2_younger_pending_r1_dies() {
+        EntityLocker<Integer> locker = new TimestampEntityLocker<>(DeadlockPreventionRule.WAIT_DIE);
+        CountDownLatch r1Locked = new CountDownLatch(1);
+        CountDownLatch t2Died = new CountDownLatch(1);
+
+        CompletableFuture<Void> future1 = runAsync(() -> {
+            locker.lock(1);
+            try {
+                r1Locked.countDown();
+                await(t2Died);
+                locker.lock(2);
+                locker.unlock(2);
+            } finally {
+                locker.unlock(1);
+            }
+        });
+
+        r1Locked.await();
+        locker.lock(2);
+        try {
+            assertThrows(DeadlockDetectedException.class, () -> locker.lock(1));
+        } finally {
+            t2Died.countDown();
+            locker.unlock(2);
+        }
+        future1.join();
+    }
+
+    @Test
+    @SneakyThrows
+    void waitDie_t1_older_pending_r2_waits() {
+        EntityLocker<Integer> locker = new TimestampEntityLocker<>(DeadlockPreventionRule.WAIT_DIE);
+        CountDownLatch r2Locked = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+
+        locker.lock(1);
+        try {
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2);
+                try {
+                    r2Locked.countDown();
+                    await(stopper);
+                } finally {
+                    locker.unlock(2);
+                }
+            });
+            r2Locked.await();
+            stopper.countDown();
+            assertTrue(locker.tryLock(2, 1, HOURS));
+            locker.unlock(2);
+            future2.join();
+        } finally {
+            locker.unlock(1);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void woundWait_t1_older_pending_r2_wounds_t2() {
+        EntityLocker<Integer> locker = new TimestampEntityLocker<>(DeadlockPreventionRule.WOUND_WAIT);
+        CountDownLatch r2Locked = new CountDownLatch(1);
+
+        locker.lock(1);
+        try {
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2);
+                try {
+                    r2Locked.countDown();
+                    locker.lock(1);
+                    locker.unlock(1);
+                } finally {
+                    locker.unlock(2);
+                }
+            });
+            r2Locked.await();
+            locker.lock(2);
+            locker.unlock(2);
+
+            CompletableFuture<Void> wounded = future2.handle((result, error) -> {
+                assertTrue(error.getCause() instanceof DeadlockDetectedException);
+                return null;
+            });
+            wounded.join();
+        } finally {
+            locker.unlock(1);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void woundWait_t2_waiting_on_r3_woken_when_wounded() {
+        EntityLocker<Integer> locker = new TimestampEntityLocker<>(DeadlockPreventionRule.WOUND_WAIT);
+        CountDownLatch r3Locked = new CountDownLatch(1);
+        CountDownLatch r2Locked = new CountDownLatch(1);
+        CountDownLatch stopper = new CountDownLatch(1);
+
+        locker.lock(1);
+        try {
+            CompletableFuture<Void> future3 = runAsync(() -> {
+                locker.lock(3);
+                try {
+                    r3Locked.countDown();
+                    await(stopper);
+                } finally {
+                    locker.unlock(3);
+                }
+            });
+            r3Locked.await();
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                locker.lock(2);
+                try {
+                    r2Locked.countDown();
+                    locker.lock(3);
+                    locker.unlock(3);
+                } finally {
+                    locker.unlock(2);
+                }
+            });
+            r2Locked.await();
+            Thread.sleep(50);
+
+            assertTrue(locker.tryLock(2, 5, SECONDS));
+            locker.unlock(2);
+            ExecutionException e = assertThrows(ExecutionException.class, future2::get);
+            assertTrue(e.getCause() instanceof DeadlockDetectedException);
+            stopper.countDown();
+            future3.join();
+        } finally {
+            locker.unlock(1);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void waitDie_sync() {
+        sync(DeadlockPreventionRule.WAIT_DIE);
+    }
+
+    @Test
+    @SneakyThrows
+    void woundWait_sync() {
+        sync(DeadlockPreventionRule.WOUND_WAIT);
+    }
+
+    @SneakyThrows
+    private void sync(DeadlockPreventionRule rule) {
+        EntityLocker<Integer> locker = new TimestampEntityLocker<>(rule);
+        int endExclusive = 2000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> doIncrements(locker, endExclusive));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(endExclusive * threads.length, counter);
+    }
+
+    private void doIncrements(EntityLocker<Integer> locker, int endExclusive) {
+        int i = endExclusive;
+        while (i-- != 0) {
+            int other = (int) (random() * 3);
+            boolean commonFirst = random() < 0.5;
+            int first = commonFirst ? 0 : other;
+            int second = commonFirst ? other : 0;
+            while (true) {
+                int locked = 0;
+                try {
+                    locker.lock(first);
+                    locked++;
+                    locker.lock(second);
+                    locked++;
+                    counter++;
+                    break;
+                } catch (DeadlockDetectedException e) {
+                    Thread.onSpinWait();
+                } finally {
+                    if (locked == 2) {
+                        locker.unlock(second);
+                    }
+                    if (locked >= 1) {
+                        locker.unlock(first);
+                    }
+                }
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+}
@@ -0,0 +1,149 @@
+package org.locker.tests;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.DeadlockDetectedException;
+import org.locker.EscalationEntityLocker;
+import org.locker.LockOwner;
+import org.locker.NoDeadLockEntityLocker;
+import org.locker.OwnedEntityLocker;
+import org.locker.TokenEntityLocker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenEntityLockerTest {
+    private static final int THRESHOLD = 2;
+    private TokenEntityLocker<Integer> locker;
+
+    @BeforeEach
+    void setUp() {
+        locker = new TokenEntityLocker<>(new OwnedEntityLocker<>(),
+                owned -> new EscalationEntityLocker<>(new NoDeadLockEntityLocker<>(owned), THRESHOLD, id -> id / 10));
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockedOnOneThread_unlockedOnAnother() {
+        LockOwner owner = supplyAsync(() -> locker.lock(1)).join();
+        assertNull(locker.tryLock(1, 10, MILLISECONDS));
+
+        runAsync(() -> locker.unlock(1, owner)).join();
+        LockOwner next = locker.tryLock(1, 10, MILLISECONDS);
+        assertNotNull(next);
+        locker.unlock(1, next);
+    }
+
+    @Test
+    public void undecoratedOwnedLocker_unlockedOnAnotherThread() {
+        TokenEntityLocker<Integer> locker = new TokenEntityLocker<>(new OwnedEntityLocker<>());
+        LockOwner owner = supplyAsync(() -> locker.lock(1)).join();
+
+        runAsync(() -> locker.unlock(1, owner)).join();
+        locker.unlock(1, locker.lock(1));
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockedTwiceByToken_releasedAfterSecondUnlock() {
+        LockOwner owner = locker.lock(1);
+        assertTrue(supplyAsync(() -> tryLock(1, owner)).join());
+
+        runAsync(() -> locker.unlock(1, owner)).join();
+        assertNull(locker.tryLock(1, 10, MILLISECONDS));
+        locker.unlock(1, owner);
+        LockOwner next = locker.tryLock(1, 10, MILLISECONDS);
+        assertNotNull(next);
+        locker.unlock(1, next);
+    }
+
+    @Test
+    public void lockedByAnotherToken_unlockFailed() {
+        LockOwner owner = locker.lock(1);
+        try {
+            assertThrows(IllegalMonitorStateException.class, () -> locker.unlock(1, LockOwner.newOwner()));
+        } finally {
+            locker.unlock(1, owner);
+        }
+    }
+
+    @Test
+    public void reproduceDeadlock_token1_has_r1_yet_pending_r2_and_token2_has_r2_yet_pending_r1() {
+        LockOwner owner1 = locker.lock(1);
+        LockOwner owner2 = locker.lock(2);
+        assertThrows(DeadlockDetectedException.class, () -> {
+            CompletableFuture<Void> future1 = runAsync(() -> {
+                try {
+                    locker.lock(2, owner1);
+                    locker.unlock(2, owner1);
+                } finally {
+                    locker.unlock(1, owner1);
+                }
+            });
+
+            CompletableFuture<Void> future2 = runAsync(() -> {
+                try {
+                    locker.lock(1, owner2);
+                    locker.unlock(1, owner2);
+                } finally {
+                    locker.unlock(2, owner2);
+                }
+            });
+
+            try {
+                future1.join();
+            } catch (CompletionException e) {
+                future2.join();
+                throw e.getCause();
+            }
+
+            try {
+                future2.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockedOverThresholdAcrossThreads_partitionEscalatedForToken() {
+        LockOwner owner = locker.lock(10);
+        for (int i = 11; i <= 10 + THRESHOLD; i++) {
+            int id = i;
+            runAsync(() -> locker.lock(id, owner)).join();
+        }
+
+        assertNull(supplyAsync(() -> tryLock(19)).join());
+        LockOwner other = locker.tryLock(20, 10, MILLISECONDS);
+        assertNotNull(other);
+        locker.unlock(20, other);
+
+        for (int i = 10 + THRESHOLD; i >= 10; i--) {
+            int id = i;
+            runAsync(() -> locker.unlock(id, owner)).join();
+        }
+        LockOwner next = supplyAsync(() -> tryLock(19)).join();
+        assertNotNull(next);
+        locker.unlock(19, next);
+    }
+
+    @SneakyThrows
+    private boolean tryLock(int id, LockOwner owner) {
+        return locker.tryLock(id, owner, 10, MILLISECONDS);
+    }
+
+    @SneakyThrows
+    private LockOwner tryLock(int id) {
+        return locker.tryLock(id, 10, MILLISECONDS);
+    }
+}
@@ -1,28 +1,52 @@
 package org.locker.cases;
 
+import org.locker.AsyncEscalationEntityLocker;
+import org.locker.AsyncGlobalEntityLocker;
+import org.locker.AsyncNoDeadLockEntityLocker;
+import org.locker.BasicAsyncEntityLocker;
 import org.locker.BasicEntityLocker;
+import org.locker.BasicReadWriteEntityLocker;
 import org.locker.EntityLocker;
 import org.locker.EscalationEntityLocker;
+import org.locker.EscalationReadWriteEntityLocker;
 import org.locker.GlobalEntityLocker;
+import org.locker.HierarchicalEntityLocker;
+import org.locker.JdbcEntityLocker;
 import org.locker.NoDeadLockEntityLocker;
+import org.locker.NoDeadLockReadWriteEntityLocker;
+import org.locker.ReadWriteEntityLocker;
+import org.locker.StripedEntityLocker;
 import org.locker.cases.entity.BookId;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 @EnableTransactionManagement
 @EnableJpaRepositories
 @EntityScan
 public class ContextConfig {
 
     public static final int GLOBAL_LOCK_THRESHOLD = 5;
+    public static final int BOOK_LOCK_STRIPES = 1024;
+    public static final String BOOK_LOCK_TABLE = "book_lock";
+    public static final int BOOK_LOCK_LEASE_SECONDS = 30;
 
     @Bean
     public EntityLocker<BookId> basicBookLocker() {
         return new BasicEntityLocker<>();
     }
 
+    @Bean
+    public EntityLocker<BookId> stripedBookLocker() {
+        return new StripedEntityLocker<>(BOOK_LOCK_STRIPES);
+    }
+
     @Bean
     public EntityLocker<BookId> noDeadLockBookLocker() {
         return new NoDeadLockEntityLocker<>(new BasicEntityLocker<>());
@@ -34,8 +58,30 @@ public class ContextConfig {
         // OR return new EscalationEntityLocker<>(new BasicEntityLocker<>(), GLOBAL_LOCK_THRESHOLD);
     }
 
+    @Bean
+    public ReadWriteEntityLocker<BookId> readWriteBookLocker() {
+        return new EscalationReadWriteEntityLocker<>(new NoDeadLockReadWriteEntityLocker<>(new BasicReadWriteEntityLocker<>()), GLOBAL_LOCK_THRESHOLD);
+    }
+
     @Bean
     public GlobalEntityLocker<BookId> globalBookLocker() {
         return new GlobalEntityLocker<>(new EscalationEntityLocker<>(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()), GLOBAL_LOCK_THRESHOLD));
     }
+
+    @Bean
+    public HierarchicalEntityLocker<BookId, String> languageBookLocker() {
+        return new HierarchicalEntityLocker<>(new NoDeadLockEntityLocker<>(new BasicEntityLocker<>()), BookId::getLanguage);
+    }
+
+    @Bean
+    public JdbcEntityLocker<BookId> jdbcBookLocker(DataSource dataSource) throws SQLException {
+        JdbcEntityLocker<BookId> locker = new JdbcEntityLocker<>(dataSource, BOOK_LOCK_TABLE, JdbcEntityLocker.serialized(), BOOK_LOCK_LEASE_SECONDS, SECONDS);
+        locker.createTableIfNotExists();
+        return locker;
+    }
+
+    @Bean
+    public AsyncGlobalEntityLocker<BookId> asyncBookLocker() {
+        return new AsyncGlobalEntityLocker<>(new AsyncEscalationEntityLocker<>(new AsyncNoDeadLockEntityLocker<>(new BasicAsyncEntityLocker<>()), GLOBAL_LOCK_THRESHOLD));
+    }
 }
@@ -0,0 +1,187 @@
+package org.locker.cases;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locker.JdbcEntityLocker;
+import org.locker.LeaseExpiredException;
+import org.locker.cases.entity.BookId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.locker.cases.ContextConfig.BOOK_LOCK_LEASE_SECONDS;
+import static org.locker.cases.ContextConfig.BOOK_LOCK_TABLE;
+
+@DataJpaTest
+@ContextConfiguration(classes = ContextConfig.class)
+public class JdbcEntityLockerTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcEntityLocker<BookId> jdbcBookLocker;
+
+    private JdbcEntityLocker<BookId> otherNode;
+    private BookId bookId;
+    private volatile int counter;
+
+    @BeforeEach
+    void setUp() {
+        otherNode = new JdbcEntityLocker<>(dataSource, BOOK_LOCK_TABLE, JdbcEntityLocker.serialized(), BOOK_LOCK_LEASE_SECONDS, SECONDS);
+        bookId = new BookId("Crime and Punishment " + System.nanoTime(), "en");
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherNode.close();
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockedByOneNode_otherNodeWaits() {
+        jdbcBookLocker.lock(bookId);
+        try {
+            assertFalse(supplyAsync(() -> tryLock(otherNode, bookId, 50)).join());
+        } finally {
+            jdbcBookLocker.unlock(bookId);
+        }
+        assertTrue(supplyAsync(() -> tryLockAndUnlock(otherNode, bookId, 5000)).join());
+    }
+
+    @Test
+    @SneakyThrows
+    public void expiredRowOfCrashedNode_claimed() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO " + BOOK_LOCK_TABLE + " (lock_key, owner, expires_at) VALUES (?, ?, CURRENT_TIMESTAMP - INTERVAL '1' SECOND)")) {
+            statement.setString(1, JdbcEntityLocker.<BookId>serialized().apply(bookId));
+            statement.setString(2, "crashed");
+            statement.executeUpdate();
+        }
+
+        assertTrue(tryLockAndUnlock(otherNode, bookId, 5000));
+    }
+
+    @Test
+    @SneakyThrows
+    public void contendedOnOneNode_queuedLocally() {
+        int threads = 4;
+        int iterations = 250;
+        long roundTrips = otherNode.getRoundTrips();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    otherNode.lock(bookId);
+                    try {
+                        counter++;
+                    } finally {
+                        otherNode.unlock(bookId);
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * iterations, counter);
+        assertTrue(otherNode.getRoundTrips() - roundTrips < threads * iterations / 4);
+    }
+
+    @Test
+    @SneakyThrows
+    public void leaseTakenByOtherNode_unlockFailedAndRowClaimedAgain() {
+        try (JdbcEntityLocker<BookId> shortLease = new JdbcEntityLocker<>(dataSource, BOOK_LOCK_TABLE, JdbcEntityLocker.serialized(), 300, MILLISECONDS)) {
+            shortLease.lock(bookId);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "UPDATE " + BOOK_LOCK_TABLE + " SET owner = ?, expires_at = CURRENT_TIMESTAMP + INTERVAL '60' SECOND WHERE lock_key = ?")) {
+                statement.setString(1, "other");
+                statement.setString(2, JdbcEntityLocker.<BookId>serialized().apply(bookId));
+                assertEquals(1, statement.executeUpdate());
+            }
+            MILLISECONDS.sleep(500);
+
+            assertThrows(LeaseExpiredException.class, () -> shortLease.unlock(bookId));
+            assertFalse(tryLock(shortLease, bookId, 50));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void steadyTrafficOnOneNode_otherNodeServed() {
+        AtomicBoolean stopped = new AtomicBoolean();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[2];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = runAsync(() -> {
+                while (!stopped.get()) {
+                    jdbcBookLocker.lock(bookId);
+                    try {
+                        counter++;
+                    } finally {
+                        jdbcBookLocker.unlock(bookId);
+                    }
+                }
+            });
+        }
+        try {
+            MILLISECONDS.sleep(50);
+            assertTrue(supplyAsync(() -> tryLockAndUnlock(otherNode, bookId, 5000)).join());
+        } finally {
+            stopped.set(true);
+            CompletableFuture.allOf(workers).join();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void failingDatabase_failuresCountedAndWaitersReleasedOnClose() {
+        JdbcEntityLocker<BookId> broken = new JdbcEntityLocker<>(dataSource, "missing_lock", JdbcEntityLocker.serialized(), BOOK_LOCK_LEASE_SECONDS, SECONDS);
+        CompletableFuture<Void> waiter = runAsync(() -> broken.lock(bookId));
+        while (broken.getFailures() == 0) {
+            MILLISECONDS.sleep(1);
+        }
+        assertFalse(waiter.isDone());
+
+        broken.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void notLocked_unlockFailed() {
+        assertThrows(IllegalMonitorStateException.class, () -> jdbcBookLocker.unlock(bookId));
+    }
+
+    @SneakyThrows
+    private boolean tryLock(JdbcEntityLocker<BookId> locker, BookId id, int timeout) {
+        return locker.tryLock(id, timeout, MILLISECONDS);
+    }
+
+    private boolean tryLockAndUnlock(JdbcEntityLocker<BookId> locker, BookId id, int timeout) {
+        if (!tryLock(locker, id, timeout)) {
+            return false;
+        }
+        locker.unlock(id);
+        return true;
+    }
+}